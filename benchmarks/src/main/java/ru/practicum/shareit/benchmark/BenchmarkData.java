@@ -0,0 +1,55 @@
+package ru.practicum.shareit.benchmark;
+
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.Status;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+final class BenchmarkData {
+    static final String[] WORDS = {
+            "drill", "saw", "hammer", "ladder", "tent", "bicycle", "kayak", "projector", "camera", "guitar",
+            "cordless", "electric", "folding", "portable", "heavy", "compact", "wooden", "steel", "old", "new"
+    };
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    private BenchmarkData() {
+    }
+
+    static String itemName(long itemId) {
+        return WORDS[(int) (itemId % 10)];
+    }
+
+    static String itemDescription(long itemId) {
+        return WORDS[10 + (int) (itemId % 7)] + " " + WORDS[10 + (int) (itemId % 3)] + " " + itemName(itemId)
+                + " in good condition, pick up near the metro";
+    }
+
+    static List<Booking> bookings(int count) {
+        User owner = new User(1L, "Owner", "owner@mail.com");
+        User booker = new User(2L, "Booker", "booker@mail.com");
+
+        List<Booking> bookings = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            Item item = new Item(id, itemName(id), itemDescription(id), true, owner, null);
+            LocalDateTime start = NOW.plusHours(id);
+            bookings.add(new Booking(id, start, start.plusDays(1), item, booker, Status.APPROVED));
+        }
+        return bookings;
+    }
+
+    static List<Comment> comments(Item item, int count) {
+        User author = new User(2L, "Booker", "booker@mail.com");
+
+        List<Comment> comments = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            comments.add(new Comment(id, "Worked fine, thanks! " + id, item, author, NOW.minusDays(id)));
+        }
+        return comments;
+    }
+}
@@ -0,0 +1,59 @@
+package ru.practicum.shareit.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.StreamUtils;
+import ru.practicum.shareit.booking.mapper.BookingMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Cost of relaying a server booking list through the gateway: the old read-into-Object-and-write-again path
+ * against handing the body bytes over as they are. Both variants read the body from a stream, standing in for the
+ * server connection, so the byte variant pays for the buffering {@code BaseClient.sendRequest} does, and both write
+ * into the same reused sink, standing in for the servlet output stream.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GatewayPassThroughBenchmark {
+    @Param({"25", "1000"})
+    int size;
+
+    private ObjectMapper mapper;
+    private byte[] serverResponse;
+    private ByteArrayOutputStream sink;
+
+    @Setup
+    public void setUp() throws IOException {
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+        serverResponse = mapper.writeValueAsBytes(BenchmarkData.bookings(size).stream()
+                .map(BookingMapper::toBookingDto)
+                .collect(Collectors.toList()));
+        sink = new ByteArrayOutputStream(serverResponse.length * 2);
+    }
+
+    @Benchmark
+    public int parseAndReserialize() throws IOException {
+        sink.reset();
+        Object body = mapper.readValue(new ByteArrayInputStream(serverResponse), Object.class);
+        mapper.writeValue(sink, body);
+        return sink.size();
+    }
+
+    @Benchmark
+    public int passThrough() throws IOException {
+        sink.reset();
+        byte[] body = StreamUtils.copyToByteArray(new ByteArrayInputStream(serverResponse));
+        sink.writeBytes(body);
+        return sink.size();
+    }
+}
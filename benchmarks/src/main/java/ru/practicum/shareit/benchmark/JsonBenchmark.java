@@ -0,0 +1,61 @@
+package ru.practicum.shareit.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.mapper.BookingMapper;
+import ru.practicum.shareit.item.dto.ItemBookingDto;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Comment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonBenchmark {
+    @Param({"25", "1000"})
+    int size;
+
+    private ObjectMapper mapper;
+    private List<BookingDto> bookingDtos;
+    private List<ItemBookingDto> itemBookingDtos;
+
+    @Setup
+    public void setUp() {
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+
+        List<Booking> bookings = BenchmarkData.bookings(size);
+        List<Comment> comments = BenchmarkData.comments(bookings.get(0).getItem(), 3);
+
+        bookingDtos = bookings.stream()
+                .map(BookingMapper::toBookingDto)
+                .collect(Collectors.toList());
+
+        itemBookingDtos = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Booking booking = bookings.get(i);
+            itemBookingDtos.add(ItemMapper.toItemBookingDto(booking.getItem(), booking,
+                    bookings.get((i + 1) % size), comments));
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeBookingDtos() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(bookingDtos);
+    }
+
+    @Benchmark
+    public byte[] serializeItemBookingDtos() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(itemBookingDtos);
+    }
+}
@@ -0,0 +1,148 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.ShareItApp;
+import ru.practicum.shareit.booking.Status;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.booking.service.ItemBookingWindows;
+import ru.practicum.shareit.item.dto.ItemBookingDto;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.item.storage.ItemSearchIndexLoader;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service hot paths against an embedded H2 database seeded with {@code users * itemsPerUser} items and
+ * {@code bookingsPerItem} bookings per item, half of them in the past.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ServiceBenchmark {
+    private static final int PAGE_SIZE = 25;
+    private static final int BATCH_SIZE = 1000;
+
+    @Param({"100"})
+    int users;
+
+    @Param({"10"})
+    int itemsPerUser;
+
+    @Param({"10"})
+    int bookingsPerItem;
+
+    private ConfigurableApplicationContext context;
+    private BookingService bookingService;
+    private ItemService itemService;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(ShareItApp.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .run("--spring.datasource.url=jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.hibernate.SQL=OFF",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=OFF",
+                        "--logging.level.org.springframework.transaction.interceptor=OFF",
+                        "--logging.level.org.springframework.orm.jpa.JpaTransactionManager=OFF");
+
+        seed(context.getBean(JdbcTemplate.class));
+        context.getBean(ItemSearchIndexLoader.class).rebuild();
+        context.getBean(ItemBookingWindows.class).rollForward();
+
+        bookingService = context.getBean(BookingService.class);
+        itemService = context.getBean(ItemService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Slice<BookingDto> bookingsByOwner() {
+        return bookingService.getByOwnerId(randomUserId(), "ALL", 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Slice<ItemBookingDto> itemsByOwner() {
+        return itemService.findByUserId(randomUserId(), 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Slice<ItemDto> search() {
+        String term = BenchmarkData.WORDS[ThreadLocalRandom.current().nextInt(BenchmarkData.WORDS.length)];
+        return itemService.search(term, 0, PAGE_SIZE);
+    }
+
+    private long randomUserId() {
+        return ThreadLocalRandom.current().nextLong(1, users + 1);
+    }
+
+    private void seed(JdbcTemplate jdbcTemplate) {
+        List<Object[]> rows = new ArrayList<>();
+        for (long userId = 1; userId <= users; userId++) {
+            rows.add(new Object[]{userId, "User " + userId, "user" + userId + "@mail.com"});
+        }
+        batchInsert(jdbcTemplate, "insert into users (id, name, email) values (?, ?, ?)", rows);
+
+        long itemId = 0;
+        for (long userId = 1; userId <= users; userId++) {
+            for (int i = 0; i < itemsPerUser; i++) {
+                itemId++;
+                rows.add(new Object[]{itemId, BenchmarkData.itemName(itemId), BenchmarkData.itemDescription(itemId),
+                        true, userId});
+            }
+        }
+        batchInsert(jdbcTemplate,
+                "insert into items (id, name, description, available, user_id) values (?, ?, ?, ?, ?)", rows);
+
+        LocalDateTime now = LocalDateTime.now();
+        long bookingId = 0;
+        for (long id = 1; id <= itemId; id++) {
+            long ownerId = (id - 1) / itemsPerUser + 1;
+            long bookerId = ownerId % users + 1;
+            for (int i = 0; i < bookingsPerItem; i++) {
+                bookingId++;
+                LocalDateTime start = now.plusDays(2L * (i - bookingsPerItem / 2));
+                rows.add(new Object[]{bookingId, Timestamp.valueOf(start), Timestamp.valueOf(start.plusDays(1)),
+                        id, bookerId, Status.APPROVED.name()});
+            }
+        }
+        batchInsert(jdbcTemplate, "insert into bookings (id, start_date, end_date, item_id, booker_id, status) " +
+                "values (?, ?, ?, ?, ?, ?)", rows);
+
+        // Seeded bookings skip approval, so their windows start out due
+        jdbcTemplate.update("insert into item_booking_windows (item_id, roll_at) " +
+                "select distinct item_id, localtimestamp from bookings where status = ?", Status.APPROVED.name());
+
+        for (String table : List.of("users", "items", "bookings")) {
+            Long maxId = jdbcTemplate.queryForObject("select max(id) from " + table, Long.class);
+            jdbcTemplate.execute("alter sequence " + table + "_seq restart with " + (maxId + 50));
+        }
+    }
+
+    private static void batchInsert(JdbcTemplate jdbcTemplate, String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(from + BATCH_SIZE, rows.size())));
+        }
+        rows.clear();
+    }
+}
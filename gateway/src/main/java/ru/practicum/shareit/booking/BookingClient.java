@@ -9,8 +9,11 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.booking.dto.BookItemRequestDto;
 import ru.practicum.shareit.booking.dto.BookingState;
+import ru.practicum.shareit.client.AdaptiveConcurrencyLimiter;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.RouteGuards;
 
+import java.util.HashMap;
 import java.util.Map;
 
 @Service
@@ -18,22 +21,29 @@ public class BookingClient extends BaseClient {
     private static final String API_PREFIX = "/bookings";
 
     @Autowired
-    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                         HttpComponentsClientHttpRequestFactory requestFactory,
+                         AdaptiveConcurrencyLimiter limiter, RouteGuards guards) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(() -> requestFactory)
+                        .build(),
+                limiter,
+                guards,
+                "bookings"
         );
     }
 
-    public ResponseEntity<Object> getBookings(long userId, BookingState state, Integer from, Integer size) {
-        Map<String, Object> parameters = Map.of(
+    public ResponseEntity<Object> getBookings(long userId, BookingState state, Integer from, Integer size, String cursor,
+                                              boolean total) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
                 "state", state.name(),
                 "from", from,
                 "size", size
-        );
-        return get("?state={state}&from={from}&size={size}", userId, parameters);
+        ));
+        String path = withCursor("?state={state}&from={from}&size={size}", parameters, cursor);
+        return get(withTotal(path, parameters, total), userId, parameters);
     }
 
 
@@ -50,12 +60,14 @@ public class BookingClient extends BaseClient {
     }
 
 
-    public ResponseEntity<Object> getByOwnerId(long userId, BookingState state, int from, int size) {
-        Map<String, Object> parameters = Map.of(
+    public ResponseEntity<Object> getByOwnerId(long userId, BookingState state, int from, int size, String cursor,
+                                               boolean total) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
                 "state", state.name(),
                 "from", from,
                 "size", size
-        );
-        return get("/owner?state={state}&from={from}&size={size}", userId, parameters);
+        ));
+        String path = withCursor("/owner?state={state}&from={from}&size={size}", parameters, cursor);
+        return get(withTotal(path, parameters, total), userId, parameters);
     }
 }
@@ -9,6 +9,7 @@ import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.booking.dto.BookItemRequestDto;
 import ru.practicum.shareit.booking.dto.BookingState;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
@@ -20,16 +21,19 @@ import javax.validation.constraints.PositiveOrZero;
 @Validated
 public class BookingController {
     private final BookingClient bookingClient;
+    private final BookingExportClient bookingExportClient;
 
     @GetMapping
     public ResponseEntity<Object> getBookings(@RequestHeader("X-Sharer-User-Id") long userId,
                                               @RequestParam(name = "state", defaultValue = "all") String stateParam,
                                               @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
-                                              @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
+                                              @Positive @RequestParam(name = "size", defaultValue = "10") Integer size,
+                                              @RequestParam(required = false) String cursor,
+                                              @RequestParam(defaultValue = "false", required = false) boolean total) {
         BookingState state = BookingState.from(stateParam)
                 .orElseThrow(() -> new IllegalArgumentException("Unknown state: " + stateParam));
         log.info("Get booking with state {}, userId={}, from={}, size={}", stateParam, userId, from, size);
-        return bookingClient.getBookings(userId, state, from, size);
+        return bookingClient.getBookings(userId, state, from, size, cursor, total);
     }
 
     @PostMapping
@@ -58,11 +62,26 @@ public class BookingController {
     public ResponseEntity<Object> getByOwnerId(@RequestHeader("X-Sharer-User-Id") long userId,
                                                @RequestParam(defaultValue = "ALL", required = false) String state,
                                                @RequestParam(defaultValue = "0", required = false) @PositiveOrZero int from,
-                                               @RequestParam(defaultValue = "25", required = false) @Positive int size) {
+                                               @RequestParam(defaultValue = "25", required = false) @Positive int size,
+                                               @RequestParam(required = false) String cursor,
+                                               @RequestParam(defaultValue = "false", required = false) boolean total) {
         BookingState bookingState = BookingState.from(state)
                 .orElseThrow(() -> new IllegalArgumentException("Unknown state: " + state));
         log.info("User with id = {} trying to fetch list of bookings of his own items with status = {}",
                 userId, bookingState);
-        return bookingClient.getByOwnerId(userId, bookingState, from, size);
+        return bookingClient.getByOwnerId(userId, bookingState, from, size, cursor, total);
+    }
+
+    /**
+     * Relays the server's NDJSON export as it is written, so the history is never held by the gateway.
+     */
+    @GetMapping("/owner/export")
+    public ResponseEntity<Object> exportByOwnerId(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                  @RequestParam(defaultValue = "ALL", required = false) String state,
+                                                  HttpServletResponse response) {
+        BookingState bookingState = BookingState.from(state)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown state: " + state));
+        log.info("User with id = {} exporting bookings of his own items with status = {}", userId, bookingState);
+        return bookingExportClient.exportByOwnerId(userId, bookingState, response);
     }
 }
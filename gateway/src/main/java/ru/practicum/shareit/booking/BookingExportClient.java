@@ -0,0 +1,46 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+import ru.practicum.shareit.booking.dto.BookingState;
+import ru.practicum.shareit.client.AdaptiveConcurrencyLimiter;
+import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.RouteGuards;
+
+import javax.servlet.http.HttpServletResponse;
+import java.util.Map;
+
+/**
+ * Relays booking history exports from the server. Exports run for as long as the history takes to stream, so they have
+ * a route of their own and don't use up the bulkhead or trip the circuit breaker of the interactive booking calls.
+ */
+@Service
+public class BookingExportClient extends BaseClient {
+    private static final String API_PREFIX = "/bookings";
+
+    @Autowired
+    public BookingExportClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                               HttpComponentsClientHttpRequestFactory requestFactory,
+                               AdaptiveConcurrencyLimiter limiter, RouteGuards guards) {
+        super(
+                builder
+                        .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
+                        .requestFactory(() -> requestFactory)
+                        .build(),
+                limiter,
+                guards,
+                "bookings-export"
+        );
+    }
+
+    @Nullable
+    public ResponseEntity<Object> exportByOwnerId(long userId, BookingState state, HttpServletResponse target) {
+        return relay("/owner/export?state={state}", userId, Map.of("state", state.name()), target);
+    }
+}
@@ -0,0 +1,137 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Caps the number of calls in flight to the server with a limit that follows the observed round trip time, AIMD
+ * style. Every endpoint (method and path template) keeps its own baseline, a slow moving average of its round trips,
+ * because a listing that is always slower than a lookup by id is not a sign of overload. A call that completes within
+ * rtt-tolerance times its endpoint's baseline grows the limit by one, as long as at least half of it was in use. Calls
+ * slower than that, I/O errors and 5xx only count against the current backoff-interval window, and the limit shrinks
+ * by backoff-ratio once a window in which most of at least {@value #MIN_WINDOW_CALLS} calls were slow has ended, so a
+ * few slow outliers never shrink it. Calls over the limit are rejected straight away instead of queueing.
+ */
+@Component
+public class AdaptiveConcurrencyLimiter {
+    private static final double BASELINE_WEIGHT = 0.01;
+    private static final int MIN_WINDOW_CALLS = 5;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double rttTolerance;
+    private final long windowNanos;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Counter rejections;
+
+    private final Map<String, Double> baselineRttNanos = new HashMap<>();
+
+    private volatile double limit;
+    private long windowStart;
+    private int windowCalls;
+    private int windowSlowCalls;
+
+    public AdaptiveConcurrencyLimiter(@Value("${shareit-server.concurrency.initial-limit:20}") int initialLimit,
+                                      @Value("${shareit-server.concurrency.min-limit:4}") int minLimit,
+                                      @Value("${shareit-server.concurrency.max-limit:200}") int maxLimit,
+                                      @Value("${shareit-server.concurrency.backoff-ratio:0.9}") double backoffRatio,
+                                      @Value("${shareit-server.concurrency.rtt-tolerance:2.0}") double rttTolerance,
+                                      @Value("${shareit-server.concurrency.backoff-interval:PT1S}")
+                                      Duration backoffInterval,
+                                      MeterRegistry meterRegistry) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.rttTolerance = rttTolerance;
+        this.windowNanos = backoffInterval.toNanos();
+        this.limit = initialLimit;
+        this.windowStart = System.nanoTime();
+
+        rejections = Counter.builder("gateway.concurrency.rejections")
+                .description("Calls to the server shed because the concurrency limit was reached")
+                .register(meterRegistry);
+        Gauge.builder("gateway.concurrency.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+                .register(meterRegistry);
+        Gauge.builder("gateway.concurrency.in.flight", inFlight, AtomicInteger::get)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Takes a slot for one call. Every successful acquire must be paired with {@link #release}.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                rejections.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Gives back the slot of a call to {@code endpoint} that took {@code rttNanos}. {@code dropped} is set for calls
+     * that failed with an I/O error or a 5xx.
+     */
+    public void release(String endpoint, long rttNanos, boolean dropped) {
+        release(endpoint, rttNanos, dropped, System.nanoTime());
+    }
+
+    void release(String endpoint, long rttNanos, boolean dropped, long now) {
+        int used = inFlight.getAndDecrement();
+
+        lock.lock();
+        try {
+            if (now - windowStart >= windowNanos) {
+                endWindow(now);
+            }
+            windowCalls++;
+            if (dropped) {
+                windowSlowCalls++;
+                return;
+            }
+
+            Double previous = baselineRttNanos.get(endpoint);
+            double baseline = previous == null ? rttNanos : previous;
+            baselineRttNanos.put(endpoint, baseline + (rttNanos - baseline) * BASELINE_WEIGHT);
+            if (rttNanos > baseline * rttTolerance) {
+                windowSlowCalls++;
+            } else if (used * 2 >= limit) {
+                limit = Math.min(maxLimit, limit + 1);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private void endWindow(long now) {
+        if (windowCalls >= MIN_WINDOW_CALLS && windowSlowCalls * 2 > windowCalls) {
+            limit = Math.max(minLimit, limit * backoffRatio);
+        }
+        windowStart = now;
+        windowCalls = 0;
+        windowSlowCalls = 0;
+    }
+}
@@ -2,17 +2,42 @@ package ru.practicum.shareit.client;
 
 import org.springframework.http.*;
 import org.springframework.lang.Nullable;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
+import ru.practicum.shareit.exception.ServiceUnavailableException;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
 
 public class BaseClient {
+    private static final int RELAY_BUFFER_SIZE = 8192;
+    private static final List<String> FORWARDED_HEADERS = List.of(HttpHeaders.CONTENT_TYPE, "X-Next-Cursor",
+            "X-Total-Count");
+
     protected final RestTemplate rest;
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final String route;
+    private final Bulkhead bulkhead;
+    private final CircuitBreaker circuitBreaker;
+    private final ConcurrentMap<String, CompletableFuture<ResponseEntity<Object>>> inFlightGets =
+            new ConcurrentHashMap<>();
 
-    public BaseClient(RestTemplate rest) {
+    public BaseClient(RestTemplate rest, AdaptiveConcurrencyLimiter limiter, RouteGuards guards, String route) {
         this.rest = rest;
+        this.limiter = limiter;
+        this.route = route;
+        this.bulkhead = guards.bulkhead(route);
+        this.circuitBreaker = guards.circuitBreaker(route);
     }
 
     protected ResponseEntity<Object> get(String path) {
@@ -23,8 +48,29 @@ public class BaseClient {
         return get(path, userId, null);
     }
 
+    /**
+     * Identical GETs (same URI and user) running at the same time share one upstream call and its response.
+     * Nothing is kept once the call completes.
+     */
     protected ResponseEntity<Object> get(String path, Long userId, @Nullable Map<String, Object> parameters) {
-        return makeAndSendRequest(HttpMethod.GET, path, userId, parameters, null);
+        String key = rest.getUriTemplateHandler().expand(path, parameters != null ? parameters : Map.of())
+                + " " + userId;
+        CompletableFuture<ResponseEntity<Object>> call = new CompletableFuture<>();
+        CompletableFuture<ResponseEntity<Object>> running = inFlightGets.putIfAbsent(key, call);
+        if (running != null) {
+            return await(running);
+        }
+
+        try {
+            ResponseEntity<Object> response = makeAndSendRequest(HttpMethod.GET, path, userId, parameters, null);
+            call.complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightGets.remove(key, call);
+        }
     }
 
     protected <T> ResponseEntity<Object> post(String path, T body) {
@@ -75,20 +121,174 @@ public class BaseClient {
         return makeAndSendRequest(HttpMethod.DELETE, path, userId, parameters, null);
     }
 
+    protected static String withCursor(String path, Map<String, Object> parameters, @Nullable String cursor) {
+        if (cursor == null) {
+            return path;
+        }
+        parameters.put("cursor", cursor);
+        return path + "&cursor={cursor}";
+    }
+
+    protected static String withTotal(String path, Map<String, Object> parameters, boolean total) {
+        if (!total) {
+            return path;
+        }
+        parameters.put("total", true);
+        return path + "&total={total}";
+    }
+
+    /**
+     * Sends the body to the server as it is read instead of buffering it, which takes a request factory with request
+     * body buffering turned off. Such a call lasts as long as the upload, so it is bounded by the route's bulkhead and
+     * circuit breaker only and kept out of the adaptive limit, whose round trip samples it would skew.
+     */
+    protected ResponseEntity<Object> stream(String path, long userId, MediaType contentType, InputStream body) {
+        return longRunning(() -> sendStream(path, userId, contentType, body));
+    }
+
+    /**
+     * Copies a successful response from the server to {@code target} chunk by chunk as it arrives, and returns
+     * {@code null} once it has. An error response is returned instead, like any other call. Guarded the same way as
+     * {@link #stream}.
+     */
+    @Nullable
+    protected ResponseEntity<Object> relay(String path, long userId, Map<String, Object> parameters,
+                                           HttpServletResponse target) {
+        return longRunning(() -> sendRelay(path, userId, parameters, target));
+    }
+
+    private ResponseEntity<Object> longRunning(Supplier<ResponseEntity<Object>> call) {
+        CircuitBreaker.Permit permit = acquireRoute();
+
+        long start = System.nanoTime();
+        boolean dropped = true;
+        try {
+            ResponseEntity<Object> response = call.get();
+            dropped = response != null && response.getStatusCode().is5xxServerError();
+            return response;
+        } finally {
+            circuitBreaker.onResult(permit, System.nanoTime() - start, dropped);
+            bulkhead.release();
+        }
+    }
+
     private <T> ResponseEntity<Object> makeAndSendRequest(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
+        CircuitBreaker.Permit permit = acquireRoute();
+        if (!limiter.tryAcquire()) {
+            bulkhead.release();
+            circuitBreaker.release(permit);
+            throw new ServiceUnavailableException("Server is overloaded, retry later");
+        }
+
+        long start = System.nanoTime();
+        boolean dropped = true;
+        try {
+            ResponseEntity<Object> response = sendRequest(method, path, userId, parameters, body);
+            dropped = response.getStatusCode().is5xxServerError();
+            return response;
+        } finally {
+            long rtt = System.nanoTime() - start;
+            limiter.release(endpoint(method, path), rtt, dropped);
+            circuitBreaker.onResult(permit, rtt, dropped);
+            bulkhead.release();
+        }
+    }
+
+    private String endpoint(HttpMethod method, String path) {
+        int query = path.indexOf('?');
+        return method + " /" + route + (query < 0 ? path : path.substring(0, query));
+    }
+
+    private CircuitBreaker.Permit acquireRoute() {
+        CircuitBreaker.Permit permit = circuitBreaker.tryAcquire();
+        if (permit == null) {
+            throw new ServiceUnavailableException(String.format("Server route /%s is unavailable, retry later", route));
+        }
+        if (!bulkhead.tryAcquire()) {
+            circuitBreaker.release(permit);
+            throw new ServiceUnavailableException(String.format("Too many calls to /%s, retry later", route));
+        }
+        return permit;
+    }
+
+    /**
+     * Reads the whole server response into a byte array before answering. This is deliberate: identical concurrent
+     * GETs are answered from one shared response and the item search cache keeps responses, so the body has to be
+     * replayable, and the route's limiter and breaker permits are released when the server call ends, which would
+     * otherwise stretch to the client's read speed. Listings are capped by their {@code size} parameter, and the
+     * unbounded transfers go through {@link #relay} and {@link #stream}, which copy the export's response and the
+     * import's request body chunk by chunk instead.
+     */
+    private <T> ResponseEntity<Object> sendRequest(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
         HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders(userId));
 
-        ResponseEntity<Object> shareitServerResponse;
+        ResponseEntity<byte[]> shareitServerResponse;
         try {
             if (parameters != null) {
-                shareitServerResponse = rest.exchange(path, method, requestEntity, Object.class, parameters);
+                shareitServerResponse = rest.exchange(path, method, requestEntity, byte[].class, parameters);
             } else {
-                shareitServerResponse = rest.exchange(path, method, requestEntity, Object.class);
+                shareitServerResponse = rest.exchange(path, method, requestEntity, byte[].class);
             }
         } catch (HttpStatusCodeException e) {
-            return ResponseEntity.status(e.getStatusCode()).body(e.getResponseBodyAsByteArray());
+            return prepareGatewayResponse(e.getStatusCode(), e.getResponseHeaders(), e.getResponseBodyAsByteArray());
+        }
+        return prepareGatewayResponse(shareitServerResponse.getStatusCode(), shareitServerResponse.getHeaders(),
+                shareitServerResponse.getBody());
+    }
+
+    private ResponseEntity<Object> sendStream(String path, long userId, MediaType contentType, InputStream body) {
+        try {
+            return rest.execute(path, HttpMethod.POST,
+                    request -> {
+                        request.getHeaders().putAll(defaultHeaders(userId));
+                        request.getHeaders().setContentType(contentType);
+                        StreamUtils.copy(body, request.getBody());
+                    },
+                    response -> prepareGatewayResponse(response.getStatusCode(), response.getHeaders(),
+                            StreamUtils.copyToByteArray(response.getBody())));
+        } catch (HttpStatusCodeException e) {
+            return prepareGatewayResponse(e.getStatusCode(), e.getResponseHeaders(), e.getResponseBodyAsByteArray());
+        }
+    }
+
+    private ResponseEntity<Object> sendRelay(String path, long userId, Map<String, Object> parameters,
+                                             HttpServletResponse target) {
+        try {
+            return rest.execute(path, HttpMethod.GET,
+                    request -> request.getHeaders().putAll(defaultHeaders(userId)),
+                    response -> {
+                        target.setStatus(response.getRawStatusCode());
+                        MediaType contentType = response.getHeaders().getContentType();
+                        if (contentType != null) {
+                            target.setContentType(contentType.toString());
+                        }
+                        copyFlushing(response.getBody(), target.getOutputStream());
+                        return null;
+                    },
+                    parameters);
+        } catch (HttpStatusCodeException e) {
+            return prepareGatewayResponse(e.getStatusCode(), e.getResponseHeaders(), e.getResponseBodyAsByteArray());
+        }
+    }
+
+    private static void copyFlushing(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[RELAY_BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+            out.flush();
+        }
+    }
+
+    private static ResponseEntity<Object> await(CompletableFuture<ResponseEntity<Object>> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
         }
-        return prepareGatewayResponse(shareitServerResponse);
     }
 
     private HttpHeaders defaultHeaders(Long userId) {
@@ -101,15 +301,25 @@ public class BaseClient {
         return headers;
     }
 
-    private static ResponseEntity<Object> prepareGatewayResponse(ResponseEntity<Object> response) {
-        if (response.getStatusCode().is2xxSuccessful()) {
-            return response;
-        }
+    /**
+     * Passes the server's response body through as raw bytes, so it is never parsed into an object tree
+     * and serialized again by the gateway.
+     */
+    private static ResponseEntity<Object> prepareGatewayResponse(HttpStatus status, @Nullable HttpHeaders serverHeaders,
+                                                                 @Nullable byte[] body) {
+        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(status);
 
-        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(response.getStatusCode());
+        if (serverHeaders != null) {
+            for (String header : FORWARDED_HEADERS) {
+                List<String> values = serverHeaders.get(header);
+                if (values != null) {
+                    responseBuilder.header(header, values.toArray(String[]::new));
+                }
+            }
+        }
 
-        if (response.hasBody()) {
-            return responseBuilder.body(response.getBody());
+        if (body != null && body.length > 0) {
+            return responseBuilder.body(body);
         }
 
         return responseBuilder.build();
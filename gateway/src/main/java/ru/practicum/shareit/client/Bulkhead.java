@@ -0,0 +1,37 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Bounds the calls one route family can have running at once, so a slow route can't take every gateway thread and
+ * pooled connection. Calls over the bound are rejected instead of waiting.
+ */
+public class Bulkhead {
+    private final Semaphore permits;
+    private final Counter rejections;
+
+    public Bulkhead(String route, int maxConcurrent, MeterRegistry meterRegistry) {
+        this.permits = new Semaphore(maxConcurrent);
+
+        rejections = Counter.builder("gateway.bulkhead.rejections").tag("route", route)
+                .register(meterRegistry);
+        Gauge.builder("gateway.bulkhead.available", permits, Semaphore::availablePermits).tag("route", route)
+                .register(meterRegistry);
+    }
+
+    public boolean tryAcquire() {
+        if (permits.tryAcquire()) {
+            return true;
+        }
+        rejections.increment();
+        return false;
+    }
+
+    public void release() {
+        permits.release();
+    }
+}
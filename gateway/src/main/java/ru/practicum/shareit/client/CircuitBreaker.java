@@ -0,0 +1,177 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Count-based circuit breaker for one route family. It opens once the last window-size calls (and at least
+ * minimum-calls of them) reach the failure or slow-call rate threshold, rejects every call for open-duration, then lets
+ * half-open-calls trial calls through. It closes again if they all succeed in time and reopens on the first one that
+ * doesn't. Every permit carries the generation of the state it was granted in, and results of calls permitted before
+ * the latest transition are ignored, so a late call from before the breaker opened can't pass for a trial call.
+ */
+@Slf4j
+public class CircuitBreaker {
+    public enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    private final String route;
+    private final RouteGuardProperties properties;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final MeterRegistry meterRegistry;
+    private final Counter rejections;
+
+    private final byte[] window;
+    private int windowPosition;
+    private int windowCalls;
+    private int windowFailures;
+    private int windowSlowCalls;
+
+    private State state = State.CLOSED;
+    private long generation;
+    private long openedAt;
+    private int halfOpenStarted;
+    private int halfOpenSucceeded;
+
+    public CircuitBreaker(String route, RouteGuardProperties properties, MeterRegistry meterRegistry) {
+        this.route = route;
+        this.properties = properties;
+        this.slowCallNanos = properties.getSlowCallDurationByRoute()
+                .getOrDefault(route, properties.getSlowCallDuration()).toNanos();
+        this.openNanos = properties.getOpenDuration().toNanos();
+        this.window = new byte[properties.getWindowSize()];
+        this.meterRegistry = meterRegistry;
+
+        rejections = Counter.builder("gateway.circuit.breaker.rejections").tag("route", route)
+                .register(meterRegistry);
+        Gauge.builder("gateway.circuit.breaker.state", this, breaker -> breaker.getState().ordinal())
+                .description("0 - closed, 1 - half-open, 2 - open")
+                .tag("route", route)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Asks to make one call. A permitted call must end with either {@link #onResult} or {@link #release}.
+     *
+     * @return the permit, or {@code null} if the call is rejected
+     */
+    @Nullable
+    public Permit tryAcquire() {
+        lock.lock();
+        try {
+            if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+                transitionTo(State.HALF_OPEN);
+            }
+            if (state == State.CLOSED
+                    || state == State.HALF_OPEN && halfOpenStarted < properties.getHalfOpenCalls()) {
+                if (state == State.HALF_OPEN) {
+                    halfOpenStarted++;
+                }
+                return new Permit(generation);
+            }
+        } finally {
+            lock.unlock();
+        }
+        rejections.increment();
+        return null;
+    }
+
+    public void onResult(Permit permit, long durationNanos, boolean failed) {
+        boolean slow = durationNanos > slowCallNanos;
+
+        lock.lock();
+        try {
+            if (permit.generation != generation) {
+                return;
+            }
+            if (state == State.HALF_OPEN) {
+                if (failed || slow) {
+                    transitionTo(State.OPEN);
+                } else if (++halfOpenSucceeded >= properties.getHalfOpenCalls()) {
+                    transitionTo(State.CLOSED);
+                }
+            } else if (state == State.CLOSED) {
+                record(failed, slow);
+                if (windowCalls >= properties.getMinimumCalls()
+                        && (windowFailures * 100 >= properties.getFailureRateThreshold() * windowCalls
+                        || windowSlowCalls * 100 >= properties.getSlowCallRateThreshold() * windowCalls)) {
+                    transitionTo(State.OPEN);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gives back a permit whose call never reached the server.
+     */
+    public void release(Permit permit) {
+        lock.lock();
+        try {
+            if (permit.generation == generation && state == State.HALF_OPEN && halfOpenStarted > halfOpenSucceeded) {
+                halfOpenStarted--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public State getState() {
+        lock.lock();
+        try {
+            return state;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void record(boolean failed, boolean slow) {
+        byte outcome = (byte) ((failed ? 1 : 0) | (slow ? 2 : 0));
+        if (windowCalls == window.length) {
+            byte evicted = window[windowPosition];
+            windowFailures -= evicted & 1;
+            windowSlowCalls -= (evicted & 2) >> 1;
+        } else {
+            windowCalls++;
+        }
+        window[windowPosition] = outcome;
+        windowFailures += outcome & 1;
+        windowSlowCalls += (outcome & 2) >> 1;
+        windowPosition = (windowPosition + 1) % window.length;
+    }
+
+    private void transitionTo(State next) {
+        log.warn("Circuit breaker for /{} moves from {} to {}", route, state, next);
+        meterRegistry.counter("gateway.circuit.breaker.transitions",
+                "route", route, "from", state.name(), "to", next.name()).increment();
+
+        state = next;
+        generation++;
+        if (next == State.OPEN) {
+            openedAt = System.nanoTime();
+        }
+        halfOpenStarted = 0;
+        halfOpenSucceeded = 0;
+        windowPosition = 0;
+        windowCalls = 0;
+        windowFailures = 0;
+        windowSlowCalls = 0;
+    }
+
+    public static final class Permit {
+        private final long generation;
+
+        private Permit(long generation) {
+            this.generation = generation;
+        }
+    }
+}
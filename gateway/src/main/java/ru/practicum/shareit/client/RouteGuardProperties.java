@@ -0,0 +1,27 @@
+package ru.practicum.shareit.client;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Component
+@ConfigurationProperties("shareit-server.guard")
+@Getter
+@Setter
+public class RouteGuardProperties {
+    private int defaultMaxConcurrent = 50;
+    private Map<String, Integer> maxConcurrent = new HashMap<>();
+    private int failureRateThreshold = 50;
+    private int slowCallRateThreshold = 50;
+    private Duration slowCallDuration = Duration.ofSeconds(2);
+    private Map<String, Duration> slowCallDurationByRoute = new HashMap<>();
+    private int windowSize = 20;
+    private int minimumCalls = 10;
+    private Duration openDuration = Duration.ofSeconds(10);
+    private int halfOpenCalls = 3;
+}
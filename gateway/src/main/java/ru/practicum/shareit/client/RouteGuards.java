@@ -0,0 +1,24 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Builds the bulkhead and circuit breaker of each route family from {@link RouteGuardProperties}.
+ */
+@Component
+@RequiredArgsConstructor
+public class RouteGuards {
+    private final RouteGuardProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    public Bulkhead bulkhead(String route) {
+        int maxConcurrent = properties.getMaxConcurrent().getOrDefault(route, properties.getDefaultMaxConcurrent());
+        return new Bulkhead(route, maxConcurrent, meterRegistry);
+    }
+
+    public CircuitBreaker circuitBreaker(String route) {
+        return new CircuitBreaker(route, properties, meterRegistry);
+    }
+}
@@ -7,24 +7,35 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.DefaultUriBuilderFactory;
+import ru.practicum.shareit.client.AdaptiveConcurrencyLimiter;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.RouteGuards;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 
+import java.util.HashMap;
 import java.util.Map;
 
 @Service
 public class ItemClient extends BaseClient {
     private static final String API_PREFIX = "/items";
 
+    private final SearchResponseCache searchCache;
+
     @Autowired
-    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                      HttpComponentsClientHttpRequestFactory requestFactory,
+                      AdaptiveConcurrencyLimiter limiter, RouteGuards guards, SearchResponseCache searchCache) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(() -> requestFactory)
+                        .build(),
+                limiter,
+                guards,
+                "items"
         );
+        this.searchCache = searchCache;
     }
 
     public ResponseEntity<Object> get(long userId, long itemId) {
@@ -40,28 +51,30 @@ public class ItemClient extends BaseClient {
         return patch("/" + itemDto.getId(), userId, itemDto);
     }
 
-    public ResponseEntity<Object> findByUserId(long userId, int from, int size) {
-        return get(
-                "?from={from}&size={size}",
-                userId,
-                Map.of(
-                        "from", from,
-                        "size", size
-                )
-        );
+    public ResponseEntity<Object> findByUserId(long userId, int from, int size, String cursor, boolean total) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
+                "from", from,
+                "size", size
+        ));
+        String path = withCursor("?from={from}&size={size}", parameters, cursor);
+        return get(withTotal(path, parameters, total), userId, parameters);
     }
 
 
-    public ResponseEntity<Object> search(Long userId, String term, int from, int size) {
-        return get(
-                "/search?text={text}&from={from}&size={size}",
-                userId,
-                Map.of(
-                        "text", term,
-                        "from", from,
-                        "size", size
-                )
-        );
+    /**
+     * Search results don't depend on the user, so they are fetched anonymously and shared through the cache.
+     */
+    public ResponseEntity<Object> search(String term, int from, int size, String cursor, boolean total) {
+        SearchResponseCache.Key key = SearchResponseCache.Key.of(term, from, size, cursor, total);
+        return searchCache.get(key, () -> {
+            Map<String, Object> parameters = new HashMap<>(Map.of(
+                    "text", key.getText(),
+                    "from", from,
+                    "size", size
+            ));
+            String path = withCursor("/search?text={text}&from={from}&size={size}", parameters, cursor);
+            return get(withTotal(path, parameters, total), null, parameters);
+        });
     }
 
 
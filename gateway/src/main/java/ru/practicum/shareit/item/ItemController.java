@@ -2,6 +2,8 @@ package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
@@ -10,6 +12,7 @@ import ru.practicum.shareit.item.dto.ItemDto;
 
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.io.InputStream;
 
 @RestController
 @RequestMapping("/items")
@@ -18,6 +21,7 @@ import javax.validation.constraints.PositiveOrZero;
 @Validated
 public class ItemController {
     public final ItemClient itemClient;
+    public final ItemImportClient itemImportClient;
 
     @GetMapping("/{itemId}")
     public ResponseEntity<Object> getItemById(@RequestHeader("X-Sharer-User-Id") long userId,
@@ -31,6 +35,18 @@ public class ItemController {
         return itemClient.add(userId, itemDto);
     }
 
+    /**
+     * Passes a JSON array or NDJSON stream of items through to the server unparsed. Rows are validated one by one
+     * there, so a bad row fails on its own instead of failing the whole upload.
+     */
+    @PostMapping(path = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<Object> importItems(@RequestHeader("X-Sharer-User-Id") long userId,
+                                              @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                              InputStream rows) {
+        log.info("User with id = {} importing items", userId);
+        return itemImportClient.importItems(userId, contentType, rows);
+    }
+
     @PatchMapping("/{itemId}")
     public ResponseEntity<Object> update(@RequestHeader("X-Sharer-User-Id") Long userId,
                                          @Validated(ItemDto.UpdateFields.class) @RequestBody ItemDto itemDto,
@@ -43,18 +59,22 @@ public class ItemController {
     @GetMapping
     public ResponseEntity<Object> findByUserId(@RequestHeader("X-Sharer-User-Id") long userId,
                                                @RequestParam(defaultValue = "0", required = false) @PositiveOrZero int from,
-                                               @RequestParam(defaultValue = "25", required = false) @Positive int size) {
+                                               @RequestParam(defaultValue = "25", required = false) @Positive int size,
+                                               @RequestParam(required = false) String cursor,
+                                               @RequestParam(defaultValue = "false", required = false) boolean total) {
         log.info("User with id = {} trying to fetch item list", userId);
-        return itemClient.findByUserId(userId, from, size);
+        return itemClient.findByUserId(userId, from, size, cursor, total);
     }
 
     @GetMapping("/search")
     public ResponseEntity<Object> search(@RequestHeader("X-Sharer-User-Id") long userId,
                                          @RequestParam(name = "text") String term,
                                          @RequestParam(defaultValue = "0", required = false) @PositiveOrZero int from,
-                                         @RequestParam(defaultValue = "25", required = false) @Positive int size) {
+                                         @RequestParam(defaultValue = "25", required = false) @Positive int size,
+                                         @RequestParam(required = false) String cursor,
+                                         @RequestParam(defaultValue = "false", required = false) boolean total) {
         log.info("User trying to search items by term \"{}\"", term);
-        return itemClient.search(userId, term, from, size);
+        return itemClient.search(term, from, size, cursor, total);
     }
 
     @PostMapping("/{itemId}/comment")
@@ -0,0 +1,53 @@
+package ru.practicum.shareit.item;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+import ru.practicum.shareit.client.AdaptiveConcurrencyLimiter;
+import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.RouteGuards;
+
+import java.io.InputStream;
+
+/**
+ * Streams bulk item uploads to the server. Imports are long-running, so they have a route of their own and don't use
+ * up the bulkhead or trip the circuit breaker of the interactive item calls.
+ */
+@Service
+public class ItemImportClient extends BaseClient {
+    private static final String API_PREFIX = "/items";
+
+    @Autowired
+    public ItemImportClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                            HttpComponentsClientHttpRequestFactory requestFactory,
+                            AdaptiveConcurrencyLimiter limiter, RouteGuards guards) {
+        super(
+                builder
+                        .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
+                        .requestFactory(() -> streaming(requestFactory))
+                        .build(),
+                limiter,
+                guards,
+                "items-import"
+        );
+    }
+
+    public ResponseEntity<Object> importItems(long userId, MediaType contentType, InputStream rows) {
+        return stream("/bulk", userId, contentType, rows);
+    }
+
+    /**
+     * Same pooled client, but the request body is written straight to the connection instead of into a buffer.
+     */
+    private static HttpComponentsClientHttpRequestFactory streaming(HttpComponentsClientHttpRequestFactory pooled) {
+        HttpComponentsClientHttpRequestFactory factory = new HttpComponentsClientHttpRequestFactory(
+                pooled.getHttpClient());
+        factory.setBufferRequestBody(false);
+        return factory;
+    }
+}
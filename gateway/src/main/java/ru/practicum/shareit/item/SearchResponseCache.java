@@ -0,0 +1,255 @@
+package ru.practicum.shareit.item;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.exception.ServiceUnavailableException;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Bounded LRU cache of item search responses keyed by the normalized query. A fresh entry is served as is, a stale
+ * one is served while a single background load refreshes it, and past the stale window callers wait for the load.
+ * When the refresh queue is full a stale hit skips its refresh rather than run it on the caller's thread.
+ * Concurrent loads of the same key share one upstream call. Only 200 responses are stored.
+ */
+@Component
+public class SearchResponseCache {
+    private static final String CACHE_NAME = "item-search";
+    private static final int REFRESH_THREADS = 2;
+    private static final int REFRESH_QUEUE = 64;
+
+    private final int maxSize;
+    private final long ttlMillis;
+    private final long staleMillis;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Key, Entry> entries;
+    private final ConcurrentMap<Key, CompletableFuture<ResponseEntity<Object>>> loads = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor refresher;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+    private final Counter droppedRefreshes;
+    private final Timer loadSuccesses;
+    private final Timer loadFailures;
+
+    public SearchResponseCache(@Value("${shareit.cache.search.max-size:1000}") int maxSize,
+                               @Value("${shareit.cache.search.ttl:PT5S}") Duration ttl,
+                               @Value("${shareit.cache.search.stale-ttl:PT30S}") Duration staleTtl,
+                               MeterRegistry meterRegistry) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttl.toMillis();
+        this.staleMillis = staleTtl.toMillis();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > SearchResponseCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        AtomicInteger threads = new AtomicInteger();
+        // A full queue drops the refresh, and the stale entry is served until a later hit gets one queued
+        this.refresher = new ThreadPoolExecutor(REFRESH_THREADS, REFRESH_THREADS, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(REFRESH_QUEUE),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "search-cache-refresh-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.DiscardPolicy() {
+                    @Override
+                    public void rejectedExecution(Runnable refresh, ThreadPoolExecutor executor) {
+                        ((Refresh) refresh).drop();
+                    }
+                });
+
+        hits = Counter.builder("cache.gets").tag("cache", CACHE_NAME).tag("result", "hit")
+                .register(meterRegistry);
+        misses = Counter.builder("cache.gets").tag("cache", CACHE_NAME).tag("result", "miss")
+                .register(meterRegistry);
+        evictions = Counter.builder("cache.evictions").tag("cache", CACHE_NAME)
+                .register(meterRegistry);
+        droppedRefreshes = Counter.builder("cache.refreshes.dropped").tag("cache", CACHE_NAME)
+                .register(meterRegistry);
+        loadSuccesses = Timer.builder("cache.load.duration").tag("cache", CACHE_NAME).tag("result", "success")
+                .register(meterRegistry);
+        loadFailures = Timer.builder("cache.load.duration").tag("cache", CACHE_NAME).tag("result", "failure")
+                .register(meterRegistry);
+        Gauge.builder("cache.size", this, SearchResponseCache::size).tag("cache", CACHE_NAME)
+                .register(meterRegistry);
+    }
+
+    public ResponseEntity<Object> get(Key key, Supplier<ResponseEntity<Object>> loader) {
+        long now = System.currentTimeMillis();
+        Entry entry;
+
+        lock.lock();
+        try {
+            entry = entries.get(key);
+            if (entry != null && entry.staleUntil <= now) {
+                entries.remove(key);
+                evictions.increment();
+                entry = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (entry != null) {
+            hits.increment();
+            if (entry.freshUntil <= now) {
+                refresh(key, loader);
+            }
+            return entry.response;
+        }
+
+        misses.increment();
+        CompletableFuture<ResponseEntity<Object>> load = new CompletableFuture<>();
+        CompletableFuture<ResponseEntity<Object>> running = loads.putIfAbsent(key, load);
+        if (running != null) {
+            return await(running);
+        }
+        load(key, load, loader);
+        return await(load);
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    private void refresh(Key key, Supplier<ResponseEntity<Object>> loader) {
+        CompletableFuture<ResponseEntity<Object>> load = new CompletableFuture<>();
+        if (loads.putIfAbsent(key, load) == null) {
+            refresher.execute(new Refresh(key, load, loader));
+        }
+    }
+
+    private void load(Key key, CompletableFuture<ResponseEntity<Object>> load, Supplier<ResponseEntity<Object>> loader) {
+        Timer.Sample sample = Timer.start();
+        try {
+            ResponseEntity<Object> response = loader.get();
+            sample.stop(loadSuccesses);
+            if (response.getStatusCode() == HttpStatus.OK) {
+                store(key, response);
+            }
+            load.complete(response);
+        } catch (RuntimeException e) {
+            sample.stop(loadFailures);
+            load.completeExceptionally(e);
+        } finally {
+            loads.remove(key, load);
+        }
+    }
+
+    private void store(Key key, ResponseEntity<Object> response) {
+        long now = System.currentTimeMillis();
+
+        lock.lock();
+        try {
+            entries.put(key, new Entry(response, now + ttlMillis, now + ttlMillis + staleMillis));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static ResponseEntity<Object> await(CompletableFuture<ResponseEntity<Object>> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Search query with the text lower-cased and its whitespace collapsed, the same way the server tokenizes it.
+     */
+    @lombok.Value
+    public static class Key {
+        private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+        String text;
+        int from;
+        int size;
+        @Nullable
+        String cursor;
+        boolean total;
+
+        public static Key of(String text, int from, int size, @Nullable String cursor, boolean total) {
+            String normalized = WHITESPACE.matcher(text.trim().toLowerCase(Locale.ROOT)).replaceAll(" ");
+            return new Key(normalized, from, size, cursor, total);
+        }
+    }
+
+    private class Refresh implements Runnable {
+        private final Key key;
+        private final CompletableFuture<ResponseEntity<Object>> load;
+        private final Supplier<ResponseEntity<Object>> loader;
+
+        private Refresh(Key key, CompletableFuture<ResponseEntity<Object>> load,
+                        Supplier<ResponseEntity<Object>> loader) {
+            this.key = key;
+            this.load = load;
+            this.loader = loader;
+        }
+
+        @Override
+        public void run() {
+            load(key, load, loader);
+        }
+
+        /**
+         * Frees the key for the next refresh. A miss that joined this load in the meantime fails instead of waiting
+         * for a load that never runs.
+         */
+        private void drop() {
+            droppedRefreshes.increment();
+            loads.remove(key, load);
+            load.completeExceptionally(new ServiceUnavailableException("Item search is overloaded, retry later"));
+        }
+    }
+
+    private static class Entry {
+        private final ResponseEntity<Object> response;
+        private final long freshUntil;
+        private final long staleUntil;
+
+        private Entry(ResponseEntity<Object> response, long freshUntil, long staleUntil) {
+            this.response = response;
+            this.freshUntil = freshUntil;
+            this.staleUntil = staleUntil;
+        }
+    }
+}
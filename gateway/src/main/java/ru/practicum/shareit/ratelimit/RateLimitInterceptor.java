@@ -0,0 +1,68 @@
+package ru.practicum.shareit.ratelimit;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import ru.practicum.shareit.exception.TooManyRequestsException;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits calls per route family and client before they reach a controller. Clients are told apart by
+ * {@code X-Sharer-User-Id}, falling back to the remote address. Item search has a route of its own. A user id that
+ * isn't a number is rejected outright. A numeric one is limited together with every other unverified id until a call
+ * made with it succeeds, so made-up ids neither fill the bucket store nor get fresh buckets.
+ */
+@Component
+@RequiredArgsConstructor
+public class RateLimitInterceptor implements HandlerInterceptor {
+    private static final String SEARCH_PATH = "/items/search";
+    private static final String USER_ID_HEADER = "X-Sharer-User-Id";
+
+    private final RateLimiter rateLimiter;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String route = route(request.getRequestURI());
+        String userId = request.getHeader(USER_ID_HEADER);
+        String client = userId != null ? rateLimiter.clientOf(parseUserId(userId)) : request.getRemoteAddr();
+
+        long wait = rateLimiter.tryAcquire(route, client);
+        if (wait > 0) {
+            throw new TooManyRequestsException(
+                    String.format("Too many requests to /%s, retry later", route),
+                    Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + TimeUnit.SECONDS.toNanos(1) - 1))
+            );
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                @Nullable Exception ex) {
+        String userId = request.getHeader(USER_ID_HEADER);
+        if (userId != null && ex == null && HttpStatus.valueOf(response.getStatus()).is2xxSuccessful()) {
+            rateLimiter.verified(parseUserId(userId));
+        }
+    }
+
+    private static long parseUserId(String userId) {
+        try {
+            return Long.parseLong(userId.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(String.format("%s must be a number", USER_ID_HEADER));
+        }
+    }
+
+    private static String route(String path) {
+        if (path.startsWith(SEARCH_PATH)) {
+            return "search";
+        }
+        int end = path.indexOf('/', 1);
+        return end < 0 ? path.substring(1) : path.substring(1, end);
+    }
+}
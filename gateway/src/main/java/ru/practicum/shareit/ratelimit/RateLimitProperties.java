@@ -0,0 +1,27 @@
+package ru.practicum.shareit.ratelimit;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Component
+@ConfigurationProperties("shareit.rate-limit")
+@Getter
+@Setter
+public class RateLimitProperties {
+    private int maxBuckets = 100_000;
+    private Duration idleTimeout = Duration.ofMinutes(10);
+    private Map<String, Limit> routes = new HashMap<>();
+
+    @Getter
+    @Setter
+    public static class Limit {
+        private long capacity;
+        private double refillPerSecond;
+    }
+}
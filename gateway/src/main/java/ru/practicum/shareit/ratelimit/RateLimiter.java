@@ -0,0 +1,92 @@
+package ru.practicum.shareit.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+/**
+ * Token buckets per route and client. Buckets live in a Caffeine cache bounded to {@code max-buckets} and expired
+ * after {@code idle-timeout} without use. Its admission policy keeps frequently used buckets over a flood of new
+ * ones, so a busy client isn't handed a full bucket because others made up new ids. Every client stays limited, an
+ * evicted one merely starts over with a full bucket.
+ * <p>
+ * A user id only gets a bucket of its own once a call made with it has succeeded. Until then its calls share one
+ * bucket per route with every other unverified id.
+ */
+@Component
+public class RateLimiter {
+    static final String UNVERIFIED_CLIENT = "unverified";
+
+    private final RateLimitProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Cache<String, TokenBucket> buckets;
+    private final Cache<Long, Boolean> verifiedUserIds;
+
+    public RateLimiter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+
+        Counter evictions = Counter.builder("gateway.rate.limit.evictions")
+                .description("Buckets evicted to make room in a full bucket store")
+                .register(meterRegistry);
+        // Maintenance runs on the calling thread, so the store never grows past its bound while it is pending
+        buckets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxBuckets())
+                .expireAfterAccess(properties.getIdleTimeout())
+                .executor(Runnable::run)
+                .<String, TokenBucket>removalListener((key, bucket, cause) -> {
+                    if (cause == RemovalCause.SIZE) {
+                        evictions.increment();
+                    }
+                })
+                .build();
+        verifiedUserIds = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxBuckets())
+                .expireAfterAccess(properties.getIdleTimeout())
+                .executor(Runnable::run)
+                .build();
+        Gauge.builder("gateway.rate.limit.buckets", buckets, Cache::estimatedSize)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Takes a token from the client's bucket for the route.
+     *
+     * @return 0 if the call may proceed, otherwise nanoseconds until it may be retried
+     */
+    public long tryAcquire(String route, String client) {
+        RateLimitProperties.Limit limit = properties.getRoutes().get(route);
+        if (limit == null) {
+            return 0;
+        }
+
+        long now = System.nanoTime();
+        TokenBucket bucket = buckets.get(route + ":" + client,
+                key -> new TokenBucket(limit.getCapacity(), limit.getRefillPerSecond(), now));
+
+        long wait = bucket.tryConsume(now);
+        if (wait > 0) {
+            meterRegistry.counter("gateway.rate.limit.rejections", "route", route).increment();
+        }
+        return wait;
+    }
+
+    /**
+     * The client to limit a call made with {@code userId} as: the id itself once verified, the shared unverified
+     * client before.
+     */
+    public String clientOf(long userId) {
+        return verifiedUserIds.getIfPresent(userId) != null ? String.valueOf(userId) : UNVERIFIED_CLIENT;
+    }
+
+    /**
+     * Records that the server accepted a call made with {@code userId}, so it gets a bucket of its own.
+     */
+    public void verified(long userId) {
+        verifiedUserIds.put(userId, Boolean.TRUE);
+    }
+}
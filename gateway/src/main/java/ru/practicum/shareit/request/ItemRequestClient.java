@@ -7,9 +7,12 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.DefaultUriBuilderFactory;
+import ru.practicum.shareit.client.AdaptiveConcurrencyLimiter;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.RouteGuards;
 import ru.practicum.shareit.request.dto.NewItemRequestDto;
 
+import java.util.HashMap;
 import java.util.Map;
 
 @Service
@@ -17,12 +20,17 @@ public class ItemRequestClient extends BaseClient {
     private static final String API_PREFIX = "/requests";
 
     @Autowired
-    public ItemRequestClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public ItemRequestClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                             HttpComponentsClientHttpRequestFactory requestFactory,
+                             AdaptiveConcurrencyLimiter limiter, RouteGuards guards) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(() -> requestFactory)
+                        .build(),
+                limiter,
+                guards,
+                "requests"
         );
     }
 
@@ -38,14 +46,12 @@ public class ItemRequestClient extends BaseClient {
         return get("", userId);
     }
 
-    public ResponseEntity<Object> findAllButNotUserId(long userId, int from, int size) {
-        return get(
-                "/all?from={from}&size={size}",
-                userId,
-                Map.of(
-                        "from", from,
-                        "size", size
-                )
-        );
+    public ResponseEntity<Object> findAllButNotUserId(long userId, int from, int size, String cursor, boolean total) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
+                "from", from,
+                "size", size
+        ));
+        String path = withCursor("/all?from={from}&size={size}", parameters, cursor);
+        return get(withTotal(path, parameters, total), userId, parameters);
     }
 }
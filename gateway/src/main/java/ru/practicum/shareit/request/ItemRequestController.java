@@ -34,9 +34,11 @@ public class ItemRequestController {
     @GetMapping("/all")
     public ResponseEntity<Object> findAllButNotUserId(@RequestHeader("X-Sharer-User-Id") long userId,
                                                       @RequestParam(defaultValue = "0", required = false) @PositiveOrZero int from,
-                                                      @RequestParam(defaultValue = "25", required = false) @Positive int size) {
+                                                      @RequestParam(defaultValue = "25", required = false) @Positive int size,
+                                                      @RequestParam(required = false) String cursor,
+                                                      @RequestParam(defaultValue = "false", required = false) boolean total) {
         log.info("User with id = {} trying to fetch list of item requests", userId);
-        return requestClient.findAllButNotUserId(userId, from, size);
+        return requestClient.findAllButNotUserId(userId, from, size, cursor, total);
     }
 
     @GetMapping("/{requestId}")
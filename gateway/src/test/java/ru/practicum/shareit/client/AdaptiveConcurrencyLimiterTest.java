@@ -0,0 +1,132 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+public class AdaptiveConcurrencyLimiterTest {
+    private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final String GET_BY_ID = "GET /bookings/{bookingId}";
+    private static final String GET_OWNER_LISTING = "GET /bookings/owner";
+
+    private AdaptiveConcurrencyLimiter limiter;
+    private long now;
+
+    @BeforeEach
+    void setUp() {
+        limiter = new AdaptiveConcurrencyLimiter(10, 4, 20, 0.5, 2.0, Duration.ofSeconds(1),
+                new SimpleMeterRegistry());
+        now = System.nanoTime() + SECOND;
+    }
+
+    @Test
+    void rejectsOverLimitTest() {
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertTrue(limiter.tryAcquire());
+        }
+        Assertions.assertFalse(limiter.tryAcquire());
+        Assertions.assertEquals(10, limiter.getInFlight());
+    }
+
+    @Test
+    void fastCallsGrowLimitWhenBusyTest() {
+        fill(10);
+        call(GET_BY_ID, 10 * MILLI, false);
+
+        Assertions.assertEquals(11, limiter.getLimit());
+
+        while (limiter.getInFlight() > 0) {
+            call(GET_BY_ID, 10 * MILLI, false);
+        }
+        int drained = limiter.getLimit();
+        call(GET_BY_ID, 10 * MILLI, false);
+
+        Assertions.assertEquals(drained, limiter.getLimit(), "fewer calls in flight than half the limit don't grow it");
+    }
+
+    @Test
+    void mixedFastAndSlowEndpointsOfOneRouteKeepLimitTest() {
+        for (int window = 0; window < 30; window++) {
+            for (int i = 0; i < 10; i++) {
+                call(GET_BY_ID, (5 + i % 3) * MILLI, false);
+                call(GET_OWNER_LISTING, (200 + 10 * (i % 5)) * MILLI, false);
+            }
+            now += SECOND;
+        }
+
+        Assertions.assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    void fewSlowCallsInWindowDoNotBackOffTest() {
+        for (int i = 0; i < 10; i++) {
+            call(GET_BY_ID, 10 * MILLI, false);
+        }
+        now += SECOND;
+        for (int i = 0; i < 10; i++) {
+            call(GET_BY_ID, i < 3 ? 100 * MILLI : 10 * MILLI, false);
+        }
+        call(GET_BY_ID, 100 * MILLI, true);
+        now += SECOND;
+        call(GET_BY_ID, 10 * MILLI, false);
+
+        Assertions.assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    void sustainedSlowWindowBacksOffOnceTest() {
+        call(GET_BY_ID, 10 * MILLI, false);
+        for (int i = 0; i < 10; i++) {
+            call(GET_BY_ID, 100 * MILLI, i % 2 == 0);
+        }
+
+        Assertions.assertEquals(10, limiter.getLimit(), "the window hasn't ended yet");
+
+        now += SECOND;
+        call(GET_BY_ID, 100 * MILLI, false);
+
+        Assertions.assertEquals(5, limiter.getLimit());
+
+        for (int i = 0; i < 10; i++) {
+            call(GET_BY_ID, 100 * MILLI, true);
+        }
+        now += SECOND;
+        call(GET_BY_ID, 100 * MILLI, true);
+
+        Assertions.assertEquals(4, limiter.getLimit(), "never drops below the minimum");
+    }
+
+    @Test
+    void endpointKeepsItsOwnBaselineTest() {
+        for (int i = 0; i < 10; i++) {
+            call(GET_BY_ID, 10 * MILLI, false);
+            call(GET_OWNER_LISTING, 500 * MILLI, false);
+        }
+        now += SECOND;
+        for (int i = 0; i < 10; i++) {
+            call(GET_BY_ID, 100 * MILLI, false);
+        }
+        now += SECOND;
+        call(GET_OWNER_LISTING, 500 * MILLI, false);
+
+        Assertions.assertEquals(5, limiter.getLimit());
+    }
+
+    private void fill(int calls) {
+        for (int i = 0; i < calls; i++) {
+            limiter.tryAcquire();
+        }
+    }
+
+    private void call(String endpoint, long rttNanos, boolean dropped) {
+        if (limiter.getInFlight() == 0) {
+            limiter.tryAcquire();
+        }
+        limiter.release(endpoint, rttNanos, dropped, now);
+    }
+}
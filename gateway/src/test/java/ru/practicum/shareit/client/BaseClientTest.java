@@ -0,0 +1,103 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Runs the client against a request factory whose calls wait on a latch, so concurrent GETs can be held in flight.
+ */
+public class BaseClientTest {
+    private final List<String> calls = new CopyOnWriteArrayList<>();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private ExecutorService executor;
+    private TestClient client;
+
+    @BeforeEach
+    void setUp() {
+        RestTemplate rest = new RestTemplate((uri, method) -> new MockClientHttpRequest(method, uri) {
+            @Override
+            protected ClientHttpResponse executeInternal() {
+                calls.add(method + " " + uri + " " + getHeaders().getFirst("X-Sharer-User-Id"));
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                MockClientHttpResponse response = new MockClientHttpResponse(
+                        "{\"id\":1}".getBytes(StandardCharsets.UTF_8), HttpStatus.OK);
+                response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+                return response;
+            }
+        });
+        rest.setUriTemplateHandler(new DefaultUriBuilderFactory("http://server/items"));
+
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 4, 200, 0.9, 2.0,
+                Duration.ofSeconds(1), meterRegistry);
+        client = new TestClient(rest, limiter, new RouteGuards(new RouteGuardProperties(), meterRegistry));
+        executor = Executors.newFixedThreadPool(3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentIdenticalGetsShareOneCallTest() throws Exception {
+        Future<ResponseEntity<Object>> first = executor.submit(() -> client.get("/1", 7));
+        awaitCalls(1);
+        Future<ResponseEntity<Object>> second = executor.submit(() -> client.get("/1", 7));
+        Future<ResponseEntity<Object>> otherUser = executor.submit(() -> client.get("/1", 8));
+        awaitCalls(2);
+        Thread.sleep(50);
+        release.countDown();
+
+        ResponseEntity<Object> response = first.get(5, TimeUnit.SECONDS);
+        Assertions.assertSame(response, second.get(5, TimeUnit.SECONDS));
+        Assertions.assertArrayEquals("{\"id\":1}".getBytes(StandardCharsets.UTF_8), (byte[]) response.getBody());
+        Assertions.assertEquals(HttpStatus.OK, otherUser.get(5, TimeUnit.SECONDS).getStatusCode());
+        Assertions.assertEquals(2, calls.size());
+    }
+
+    @Test
+    void completedGetIsNotReusedTest() {
+        release.countDown();
+
+        client.get("/1", 7);
+        client.get("/1", 7);
+
+        Assertions.assertEquals(2, calls.size());
+    }
+
+    private void awaitCalls(int count) throws InterruptedException {
+        for (int i = 0; i < 500 && calls.size() < count; i++) {
+            Thread.sleep(10);
+        }
+        Assertions.assertEquals(count, calls.size());
+    }
+
+    private static class TestClient extends BaseClient {
+        TestClient(RestTemplate rest, AdaptiveConcurrencyLimiter limiter, RouteGuards guards) {
+            super(rest, limiter, guards, "items");
+        }
+    }
+}
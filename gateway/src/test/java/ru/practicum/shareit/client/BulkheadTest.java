@@ -0,0 +1,25 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class BulkheadTest {
+    @Test
+    void rejectsOverBoundUntilReleasedTest() {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        Bulkhead bulkhead = new Bulkhead("items", 2, meterRegistry);
+
+        Assertions.assertTrue(bulkhead.tryAcquire());
+        Assertions.assertTrue(bulkhead.tryAcquire());
+        Assertions.assertFalse(bulkhead.tryAcquire());
+        Assertions.assertEquals(0, meterRegistry.get("gateway.bulkhead.available").tag("route", "items").gauge()
+                .value());
+
+        bulkhead.release();
+
+        Assertions.assertTrue(bulkhead.tryAcquire());
+        Assertions.assertEquals(1, meterRegistry.counter("gateway.bulkhead.rejections", "route", "items").count());
+    }
+}
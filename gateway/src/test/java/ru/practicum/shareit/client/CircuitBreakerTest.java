@@ -0,0 +1,142 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+public class CircuitBreakerTest {
+    private static final long FAST = Duration.ofMillis(10).toNanos();
+    private static final long SLOW = Duration.ofSeconds(3).toNanos();
+
+    private RouteGuardProperties properties;
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RouteGuardProperties();
+        properties.setWindowSize(4);
+        properties.setMinimumCalls(4);
+        properties.setFailureRateThreshold(50);
+        properties.setSlowCallRateThreshold(50);
+        properties.setSlowCallDuration(Duration.ofSeconds(2));
+        properties.setOpenDuration(Duration.ofHours(1));
+        properties.setHalfOpenCalls(2);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void opensAtFailureRateAndRejectsTest() {
+        CircuitBreaker breaker = breaker();
+        call(breaker, FAST, false);
+        call(breaker, FAST, true);
+        call(breaker, FAST, false);
+
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState(), "below minimum calls");
+
+        call(breaker, FAST, true);
+
+        Assertions.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        Assertions.assertNull(breaker.tryAcquire());
+        Assertions.assertNull(breaker.tryAcquire());
+        Assertions.assertEquals(2, meterRegistry.counter("gateway.circuit.breaker.rejections", "route", "items")
+                .count());
+    }
+
+    @Test
+    void opensAtSlowCallRateTest() {
+        CircuitBreaker breaker = breaker();
+        call(breaker, SLOW, false);
+        call(breaker, FAST, false);
+        call(breaker, SLOW, false);
+        call(breaker, FAST, false);
+
+        Assertions.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void halfOpenClosesAfterTrialCallsSucceedTest() {
+        properties.setOpenDuration(Duration.ZERO);
+        CircuitBreaker breaker = opened();
+
+        CircuitBreaker.Permit first = breaker.tryAcquire();
+        CircuitBreaker.Permit second = breaker.tryAcquire();
+
+        Assertions.assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        Assertions.assertNull(breaker.tryAcquire(), "only half-open-calls trial calls are let through");
+
+        breaker.onResult(first, FAST, false);
+        breaker.onResult(second, FAST, false);
+
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        Assertions.assertEquals(1, meterRegistry.counter("gateway.circuit.breaker.transitions",
+                "route", "items", "from", "HALF_OPEN", "to", "CLOSED").count());
+    }
+
+    @Test
+    void halfOpenReopensOnFailedTrialTest() {
+        properties.setOpenDuration(Duration.ZERO);
+        CircuitBreaker breaker = opened();
+
+        breaker.onResult(breaker.tryAcquire(), SLOW, false);
+
+        Assertions.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void releasedTrialPermitIsReusedTest() {
+        properties.setOpenDuration(Duration.ZERO);
+        CircuitBreaker breaker = opened();
+        CircuitBreaker.Permit first = breaker.tryAcquire();
+        breaker.tryAcquire();
+
+        breaker.release(first);
+
+        Assertions.assertNotNull(breaker.tryAcquire());
+    }
+
+    @Test
+    void lateResultsFromEarlierStateAreIgnoredTest() {
+        properties.setOpenDuration(Duration.ZERO);
+        CircuitBreaker breaker = breaker();
+        CircuitBreaker.Permit late = breaker.tryAcquire();
+        CircuitBreaker.Permit lateReleased = breaker.tryAcquire();
+        for (int i = 0; i < 4; i++) {
+            call(breaker, FAST, true);
+        }
+        CircuitBreaker.Permit trial = breaker.tryAcquire();
+
+        breaker.onResult(late, FAST, true);
+        breaker.release(lateReleased);
+
+        Assertions.assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState(), "a late failure doesn't reopen");
+        Assertions.assertNotNull(breaker.tryAcquire());
+        Assertions.assertNull(breaker.tryAcquire(), "a late release doesn't free a trial slot");
+
+        breaker.onResult(trial, FAST, false);
+        breaker.onResult(late, FAST, false);
+
+        Assertions.assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState(), "a late success isn't a trial");
+    }
+
+    private CircuitBreaker breaker() {
+        return new CircuitBreaker("items", properties, meterRegistry);
+    }
+
+    private CircuitBreaker opened() {
+        CircuitBreaker breaker = breaker();
+        for (int i = 0; i < 4; i++) {
+            call(breaker, FAST, true);
+        }
+        return breaker;
+    }
+
+    private static void call(CircuitBreaker breaker, long durationNanos, boolean failed) {
+        CircuitBreaker.Permit permit = breaker.tryAcquire();
+        Assertions.assertNotNull(permit);
+        breaker.onResult(permit, durationNanos, failed);
+    }
+}
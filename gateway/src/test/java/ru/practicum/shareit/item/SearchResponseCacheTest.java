@@ -0,0 +1,192 @@
+package ru.practicum.shareit.item;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+public class SearchResponseCacheTest {
+    private static final SearchResponseCache.Key DRILL = SearchResponseCache.Key.of("drill", 0, 10, null, false);
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger loads = new AtomicInteger();
+    private SearchResponseCache cache;
+
+    @AfterEach
+    void tearDown() {
+        if (cache != null) {
+            cache.shutdown();
+        }
+    }
+
+    @Test
+    void keyIsNormalizedTest() {
+        Assertions.assertEquals(DRILL, SearchResponseCache.Key.of("  DRILL ", 0, 10, null, false));
+        Assertions.assertEquals(SearchResponseCache.Key.of("cordless drill", 0, 10, null, false),
+                SearchResponseCache.Key.of("Cordless \t Drill", 0, 10, null, false));
+        Assertions.assertNotEquals(DRILL, SearchResponseCache.Key.of("drill", 10, 10, null, false));
+    }
+
+    @Test
+    void freshEntryServedWithoutLoadTest() {
+        cache = cache(Duration.ofHours(1), Duration.ofHours(1), 10);
+
+        Object first = cache.get(DRILL, loader(ResponseEntity.ok("drill"))).getBody();
+        Object second = cache.get(DRILL, loader(ResponseEntity.ok("other"))).getBody();
+
+        Assertions.assertEquals("drill", first);
+        Assertions.assertEquals("drill", second);
+        Assertions.assertEquals(1, loads.get());
+        Assertions.assertEquals(1, meterRegistry.counter("cache.gets", "cache", "item-search", "result", "hit")
+                .count());
+    }
+
+    @Test
+    void staleEntryServedWhileRefreshedTest() throws InterruptedException {
+        cache = cache(Duration.ZERO, Duration.ofHours(1), 10);
+        cache.get(DRILL, loader(ResponseEntity.ok("old")));
+
+        Object stale = cache.get(DRILL, loader(ResponseEntity.ok("new"))).getBody();
+
+        Assertions.assertEquals("old", stale);
+        for (int i = 0; i < 100 && loads.get() < 2; i++) {
+            Thread.sleep(10);
+        }
+        Assertions.assertEquals(2, loads.get());
+    }
+
+    @Test
+    void fullRefreshQueueSkipsRefreshTest() throws InterruptedException {
+        cache = cache(Duration.ZERO, Duration.ofHours(1), 100);
+        int busyKeys = 66;
+        for (int i = 0; i <= busyKeys; i++) {
+            cache.get(key(i), () -> ResponseEntity.ok("old"));
+        }
+        CountDownLatch refreshing = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < busyKeys; i++) {
+            cache.get(key(i), () -> {
+                refreshing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return ResponseEntity.ok("new");
+            });
+        }
+        Assertions.assertTrue(refreshing.await(5, TimeUnit.SECONDS));
+
+        try {
+            Object stale = cache.get(key(busyKeys), loader(ResponseEntity.ok("new"))).getBody();
+
+            Assertions.assertEquals("old", stale);
+            Assertions.assertEquals(0, loads.get());
+            Assertions.assertEquals(1, meterRegistry.counter("cache.refreshes.dropped", "cache", "item-search")
+                    .count());
+        } finally {
+            release.countDown();
+        }
+
+        for (int i = 0; i < 100 && loads.get() == 0; i++) {
+            cache.get(key(busyKeys), loader(ResponseEntity.ok("new")));
+            Thread.sleep(10);
+        }
+        Assertions.assertTrue(loads.get() > 0, "a dropped refresh does not hold up the next one");
+    }
+
+    @Test
+    void expiredEntryLoadedAgainTest() throws InterruptedException {
+        cache = cache(Duration.ZERO, Duration.ZERO, 10);
+        cache.get(DRILL, loader(ResponseEntity.ok("old")));
+        Thread.sleep(2);
+
+        Assertions.assertEquals("new", cache.get(DRILL, loader(ResponseEntity.ok("new"))).getBody());
+        Assertions.assertEquals(2, loads.get());
+    }
+
+    @Test
+    void onlyOkResponsesStoredTest() {
+        cache = cache(Duration.ofHours(1), Duration.ofHours(1), 10);
+
+        cache.get(DRILL, loader(ResponseEntity.badRequest().build()));
+        cache.get(DRILL, loader(ResponseEntity.ok("drill")));
+
+        Assertions.assertEquals(2, loads.get());
+        Assertions.assertEquals(1, cache.size());
+    }
+
+    @Test
+    void leastRecentlyUsedEntryEvictedTest() {
+        cache = cache(Duration.ofHours(1), Duration.ofHours(1), 2);
+        SearchResponseCache.Key saw = SearchResponseCache.Key.of("saw", 0, 10, null, false);
+        SearchResponseCache.Key ladder = SearchResponseCache.Key.of("ladder", 0, 10, null, false);
+
+        cache.get(DRILL, loader(ResponseEntity.ok("drill")));
+        cache.get(saw, loader(ResponseEntity.ok("saw")));
+        cache.get(DRILL, loader(ResponseEntity.ok("drill")));
+        cache.get(ladder, loader(ResponseEntity.ok("ladder")));
+        cache.get(DRILL, loader(ResponseEntity.ok("drill")));
+        cache.get(saw, loader(ResponseEntity.ok("saw")));
+
+        Assertions.assertEquals(4, loads.get());
+        Assertions.assertEquals(2, cache.size());
+    }
+
+    @Test
+    void concurrentMissesShareOneLoadTest() throws Exception {
+        cache = cache(Duration.ofHours(1), Duration.ofHours(1), 10);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<ResponseEntity<Object>> slowLoader = () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return ResponseEntity.ok("drill");
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<ResponseEntity<Object>> first = executor.submit(() -> cache.get(DRILL, slowLoader));
+            Assertions.assertTrue(loading.await(5, TimeUnit.SECONDS));
+            Future<ResponseEntity<Object>> second = executor.submit(() -> cache.get(DRILL, slowLoader));
+            for (int i = 0; i < 100 && meterRegistry.counter("cache.gets", "cache", "item-search", "result", "miss")
+                    .count() < 2; i++) {
+                Thread.sleep(10);
+            }
+            release.countDown();
+
+            Assertions.assertEquals("drill", first.get(5, TimeUnit.SECONDS).getBody());
+            Assertions.assertEquals("drill", second.get(5, TimeUnit.SECONDS).getBody());
+            Assertions.assertEquals(1, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static SearchResponseCache.Key key(int from) {
+        return SearchResponseCache.Key.of("drill", from, 10, null, false);
+    }
+
+    private SearchResponseCache cache(Duration ttl, Duration staleTtl, int maxSize) {
+        return new SearchResponseCache(maxSize, ttl, staleTtl, meterRegistry);
+    }
+
+    private Supplier<ResponseEntity<Object>> loader(ResponseEntity<Object> response) {
+        return () -> {
+            loads.incrementAndGet();
+            return response;
+        };
+    }
+}
@@ -0,0 +1,69 @@
+package ru.practicum.shareit.ratelimit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import ru.practicum.shareit.exception.TooManyRequestsException;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class RateLimitInterceptorTest {
+    @Mock
+    private RateLimiter rateLimiter;
+    @InjectMocks
+    private RateLimitInterceptor interceptor;
+
+    @Test
+    void limitsByUserIdPerRouteTest() {
+        when(rateLimiter.clientOf(7)).thenReturn("7");
+        when(rateLimiter.tryAcquire("search", "7")).thenReturn(0L);
+
+        Assertions.assertTrue(interceptor.preHandle(request("/items/search", "7"), new MockHttpServletResponse(),
+                null));
+        verify(rateLimiter).tryAcquire("search", "7");
+    }
+
+    @Test
+    void nonNumericUserIdRejectedBeforeBucketTest() {
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> interceptor.preHandle(request("/items", "abc"), new MockHttpServletResponse(), null));
+        verify(rateLimiter, never()).tryAcquire(anyString(), anyString());
+    }
+
+    @Test
+    void retryAfterRoundsUpToSecondsTest() {
+        when(rateLimiter.clientOf(7)).thenReturn("7");
+        when(rateLimiter.tryAcquire("bookings", "7")).thenReturn(TimeUnit.MILLISECONDS.toNanos(1500));
+
+        TooManyRequestsException e = Assertions.assertThrows(TooManyRequestsException.class,
+                () -> interceptor.preHandle(request("/bookings/1", "7"), new MockHttpServletResponse(), null));
+        Assertions.assertEquals(2, e.getRetryAfterSeconds());
+    }
+
+    @Test
+    void successfulCallVerifiesUserIdTest() {
+        MockHttpServletResponse notFound = new MockHttpServletResponse();
+        notFound.setStatus(404);
+        interceptor.afterCompletion(request("/items", "7"), notFound, null, null);
+        verify(rateLimiter, never()).verified(anyLong());
+
+        interceptor.afterCompletion(request("/items", "7"), new MockHttpServletResponse(), null, null);
+        verify(rateLimiter).verified(7);
+    }
+
+    private static MockHttpServletRequest request(String uri, String userId) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        request.addHeader("X-Sharer-User-Id", userId);
+        return request;
+    }
+}
@@ -0,0 +1,79 @@
+package ru.practicum.shareit.ratelimit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+public class RateLimiterTest {
+    private static final int MAX_BUCKETS = 100;
+
+    private MeterRegistry meterRegistry;
+    private RateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        RateLimitProperties.Limit limit = new RateLimitProperties.Limit();
+        limit.setCapacity(1);
+        limit.setRefillPerSecond(0.001);
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setMaxBuckets(MAX_BUCKETS);
+        properties.setRoutes(Map.of("items", limit));
+
+        meterRegistry = new SimpleMeterRegistry();
+        rateLimiter = new RateLimiter(properties, meterRegistry);
+    }
+
+    @Test
+    void unlimitedRouteTest() {
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertEquals(0, rateLimiter.tryAcquire("users", "1"));
+        }
+    }
+
+    @Test
+    void rejectsOverCapacityTest() {
+        Assertions.assertEquals(0, rateLimiter.tryAcquire("items", "1"));
+        Assertions.assertTrue(rateLimiter.tryAcquire("items", "1") > 0);
+        Assertions.assertEquals(0, rateLimiter.tryAcquire("items", "2"));
+        Assertions.assertEquals(1, meterRegistry.counter("gateway.rate.limit.rejections", "route", "items").count());
+    }
+
+    @Test
+    void unverifiedIdsShareOneBucketTest() {
+        Assertions.assertEquals(0, rateLimiter.tryAcquire("items", rateLimiter.clientOf(1)));
+        for (long id = 2; id < 1_000; id++) {
+            Assertions.assertTrue(rateLimiter.tryAcquire("items", rateLimiter.clientOf(id)) > 0);
+        }
+        Assertions.assertEquals(1, meterRegistry.get("gateway.rate.limit.buckets").gauge().value());
+
+        rateLimiter.verified(1);
+
+        Assertions.assertEquals("1", rateLimiter.clientOf(1));
+        Assertions.assertEquals(0, rateLimiter.tryAcquire("items", rateLimiter.clientOf(1)));
+    }
+
+    @Test
+    void floodOfDistinctIdsKeepsHotClientLimitedTest() {
+        rateLimiter.verified(7);
+        Assertions.assertEquals(0, rateLimiter.tryAcquire("items", rateLimiter.clientOf(7)));
+        for (int i = 0; i < 20; i++) {
+            Assertions.assertTrue(rateLimiter.tryAcquire("items", rateLimiter.clientOf(7)) > 0);
+        }
+
+        for (long id = 1_000; id < 11_000; id++) {
+            rateLimiter.verified(id);
+            rateLimiter.tryAcquire("items", rateLimiter.clientOf(id));
+            if (id % 100 == 0) {
+                Assertions.assertTrue(rateLimiter.tryAcquire("items", rateLimiter.clientOf(7)) > 0,
+                        "the hot client keeps its empty bucket");
+            }
+        }
+
+        Assertions.assertTrue(meterRegistry.get("gateway.rate.limit.buckets").gauge().value() <= MAX_BUCKETS);
+        Assertions.assertTrue(meterRegistry.counter("gateway.rate.limit.evictions").count() > 0);
+    }
+}
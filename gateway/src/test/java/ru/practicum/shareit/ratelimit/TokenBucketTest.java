@@ -0,0 +1,35 @@
+package ru.practicum.shareit.ratelimit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class TokenBucketTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void consumesCapacityThenReportsWaitTest() {
+        TokenBucket bucket = new TokenBucket(2, 1, 0);
+
+        Assertions.assertEquals(0, bucket.tryConsume(0));
+        Assertions.assertEquals(0, bucket.tryConsume(0));
+        Assertions.assertEquals(SECOND, bucket.tryConsume(0));
+        Assertions.assertEquals(SECOND / 4, bucket.tryConsume(SECOND * 3 / 4));
+    }
+
+    @Test
+    void refillsAtRateUpToCapacityTest() {
+        TokenBucket bucket = new TokenBucket(2, 4, 0);
+        bucket.tryConsume(0);
+        bucket.tryConsume(0);
+
+        Assertions.assertEquals(0, bucket.tryConsume(SECOND / 4));
+        Assertions.assertTrue(bucket.tryConsume(SECOND / 4) > 0);
+
+        long later = SECOND * 10;
+        Assertions.assertEquals(0, bucket.tryConsume(later));
+        Assertions.assertEquals(0, bucket.tryConsume(later));
+        Assertions.assertEquals(SECOND / 4, bucket.tryConsume(later));
+    }
+}
@@ -1,13 +1,25 @@
 package ru.practicum.shareit.booking;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.NewBookingDto;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.pagination.Cursor;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * TODO Sprint add-bookings.
@@ -17,8 +29,10 @@ import java.util.List;
 @RequiredArgsConstructor
 @Slf4j
 public class BookingController {
+    private static final int EXPORT_FLUSH_ROWS = 200;
 
     private final BookingService bookingService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     public BookingDto add(@RequestHeader("X-Sharer-User-Id") long userId,
@@ -45,22 +59,69 @@ public class BookingController {
     }
 
     @GetMapping
-    public List<BookingDto> getByBookerId(@RequestHeader("X-Sharer-User-Id") long userId,
-                                          @RequestParam(defaultValue = "ALL", required = false) String state,
-                                          @RequestParam(defaultValue = "0", required = false) int from,
-                                          @RequestParam(defaultValue = "25", required = false) int size) {
+    public ResponseEntity<List<BookingDto>> getByBookerId(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                          @RequestParam(defaultValue = "ALL", required = false) String state,
+                                                          @RequestParam(defaultValue = "0", required = false) int from,
+                                                          @RequestParam(defaultValue = "25", required = false) int size,
+                                                          @RequestParam(required = false) String cursor,
+                                                          @RequestParam(defaultValue = "false", required = false) boolean total) {
         log.info("User with id = {} trying to fetch list of own bookings with status = {}",
                 userId, state);
-        return bookingService.getByBookerId(userId, state, from, size);
+        Slice<BookingDto> bookings = cursor == null
+                ? bookingService.getByBookerId(userId, state, from, size)
+                : bookingService.getByBookerId(userId, state, Cursor.decodeTimestamped(cursor), size);
+        Long count = total ? bookingService.countByBookerId(userId, state) : null;
+        return Cursor.toResponse(bookings, count, booking -> Cursor.of(booking.getStart(), booking.getId()));
     }
 
     @GetMapping("/owner")
-    public List<BookingDto> getByOwnerId(@RequestHeader("X-Sharer-User-Id") long userId,
-                                         @RequestParam(defaultValue = "ALL", required = false) String state,
-                                         @RequestParam(defaultValue = "0", required = false) int from,
-                                         @RequestParam(defaultValue = "25", required = false) int size) {
+    public ResponseEntity<List<BookingDto>> getByOwnerId(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                         @RequestParam(defaultValue = "ALL", required = false) String state,
+                                                         @RequestParam(defaultValue = "0", required = false) int from,
+                                                         @RequestParam(defaultValue = "25", required = false) int size,
+                                                         @RequestParam(required = false) String cursor,
+                                                         @RequestParam(defaultValue = "false", required = false) boolean total) {
         log.info("User with id = {} trying to fetch list of bookings of his own items with status = {}",
                 userId, state);
-        return bookingService.getByOwnerId(userId, state, from, size);
+        Slice<BookingDto> bookings = cursor == null
+                ? bookingService.getByOwnerId(userId, state, from, size)
+                : bookingService.getByOwnerId(userId, state, Cursor.decodeTimestamped(cursor), size);
+        Long count = total ? bookingService.countByOwnerId(userId, state) : null;
+        return Cursor.toResponse(bookings, count, booking -> Cursor.of(booking.getStart(), booking.getId()));
+    }
+
+    /**
+     * Streams the whole history as NDJSON, one booking per line. The content type is only set once the user and state
+     * have been checked, so an error before the first row is still rendered as a regular JSON error response. The
+     * output is flushed every {@value #EXPORT_FLUSH_ROWS} rows, so the rows keep reaching the gateway while the export
+     * runs and its read timeout does not expire on a slow export.
+     */
+    @GetMapping("/owner/export")
+    public void exportByOwnerId(@RequestHeader("X-Sharer-User-Id") long userId,
+                                @RequestParam(defaultValue = "ALL", required = false) String state,
+                                HttpServletResponse response) throws IOException {
+        log.info("User with id = {} exporting bookings of his own items with status = {}", userId, state);
+        ObjectWriter writer = objectMapper.writerFor(BookingDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream());
+        generator.setRootValueSeparator(null);
+        AtomicInteger rows = new AtomicInteger();
+
+        bookingService.exportByOwnerId(userId, state, booking -> {
+            if (response.getContentType() == null) {
+                response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+            }
+            try {
+                writer.writeValue(generator, booking);
+                generator.writeRaw('\n');
+                if (rows.incrementAndGet() % EXPORT_FLUSH_ROWS == 0) {
+                    generator.flush();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        generator.flush();
     }
 }
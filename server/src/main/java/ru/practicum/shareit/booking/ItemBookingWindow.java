@@ -0,0 +1,52 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import lombok.experimental.FieldDefaults;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * The last approved booking of an item that has started and the next one that hasn't. {@code rollAt} is the start of
+ * the next booking, the moment this window goes out of date. The row is also the item's booking lock: creating or
+ * rejecting a booking locks it and bumps {@code bookingsVersion}.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Entity
+@Table(name = "item_booking_windows")
+public class ItemBookingWindow {
+    @Id
+    @Column(name = "item_id")
+    Long itemId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "last_booking_id")
+    @ToString.Exclude
+    Booking lastBooking;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "next_booking_id")
+    @ToString.Exclude
+    Booking nextBooking;
+
+    @Column(name = "roll_at")
+    LocalDateTime rollAt;
+
+    @Column(name = "bookings_version")
+    long bookingsVersion;
+
+    public ItemBookingWindow(Long itemId) {
+        this.itemId = itemId;
+    }
+
+    public boolean isDue(LocalDateTime now) {
+        return rollAt != null && !rollAt.isAfter(now);
+    }
+}
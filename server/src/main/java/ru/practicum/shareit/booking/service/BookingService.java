@@ -1,9 +1,11 @@
 package ru.practicum.shareit.booking.service;
 
+import org.springframework.data.domain.Slice;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.NewBookingDto;
+import ru.practicum.shareit.pagination.Cursor;
 
-import java.util.List;
+import java.util.function.Consumer;
 
 public interface BookingService {
     BookingDto add(long userId, NewBookingDto newBookingDto);
@@ -12,7 +14,17 @@ public interface BookingService {
 
     BookingDto get(long userId, long bookingId);
 
-    List<BookingDto> getByBookerId(long userId, String state, int from, int size);
+    Slice<BookingDto> getByBookerId(long userId, String state, int from, int size);
 
-    List<BookingDto> getByOwnerId(long userId, String state, int from, int size);
+    Slice<BookingDto> getByBookerId(long userId, String state, Cursor cursor, int size);
+
+    long countByBookerId(long userId, String state);
+
+    Slice<BookingDto> getByOwnerId(long userId, String state, int from, int size);
+
+    Slice<BookingDto> getByOwnerId(long userId, String state, Cursor cursor, int size);
+
+    long countByOwnerId(long userId, String state);
+
+    void exportByOwnerId(long userId, String state, Consumer<BookingDto> consumer);
 }
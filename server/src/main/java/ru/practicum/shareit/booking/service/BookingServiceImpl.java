@@ -3,39 +3,50 @@ package ru.practicum.shareit.booking.service;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.*;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.Booking;
 import ru.practicum.shareit.booking.BookingState;
 import ru.practicum.shareit.booking.Status;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.NewBookingDto;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
+import ru.practicum.shareit.booking.storage.BookingIntervalIndex;
 import ru.practicum.shareit.booking.storage.BookingStorage;
 import ru.practicum.shareit.exception.NoSuchEntityException;
 import ru.practicum.shareit.exception.NotAvailableException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.pagination.OffsetPageRequest;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.service.UserService;
 
+import javax.persistence.EntityManager;
 import java.time.LocalDateTime;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Collections;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class BookingServiceImpl implements BookingService {
+    private static final Sort BOOKING_SORT = Sort.by(Sort.Direction.DESC, "start", "id");
 
     private final BookingStorage bookingStorage;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final ItemBookingWindows bookingWindows;
     private final UserService userService;
     private final ItemService itemService;
+    private final EntityManager entityManager;
 
     @Override
+    @Transactional
     public BookingDto add(long userId, NewBookingDto newBookingDto) {
 
         User user = userService.findById(userId);
         Item item = itemService.findById(newBookingDto.getItemId());
 
-        if (item.getUser().equals(user)) {
+        if (item.getUser().getId().equals(user.getId())) {
             throw new NoSuchEntityException(
                     String.format("User with id = %d trying to book own item with id = %d",
                             userId, item.getId())
@@ -53,11 +64,17 @@ public class BookingServiceImpl implements BookingService {
             throw new NotAvailableException("Start date of booking must be before end date");
         }
 
-        Booking newBooking = bookingStorage.save(BookingMapper.toBooking(newBookingDto, user, item));
+        Booking newBooking = bookingIntervalIndex.reserve(
+                bookingWindows.lock(item.getId()),
+                newBookingDto.getStart(),
+                newBookingDto.getEnd(),
+                () -> bookingStorage.save(BookingMapper.toBooking(newBookingDto, user, item))
+        );
         return BookingMapper.toBookingDto(newBooking);
     }
 
     @Override
+    @Transactional
     public BookingDto updateStatus(Long userId, long bookingId, boolean approved) {
 
         Booking booking = bookingStorage.findById(bookingId)
@@ -69,20 +86,25 @@ public class BookingServiceImpl implements BookingService {
             throw new NoSuchEntityException(String.format("User with id = %d doesn't own item with id = %d", userId, bookingId));
         }
 
-        if (!booking.getStatus().equals(Status.WAITING)) {
+        Status status = approved ? Status.APPROVED : Status.REJECTED;
+
+        // The status check and the update are one conditional statement, so of concurrent calls only one wins
+        if (!booking.getStatus().equals(Status.WAITING)
+                || bookingStorage.compareAndSetStatus(bookingId, Status.WAITING, status) == 0) {
             throw new NotAvailableException(
                     String.format("User with id = %d trying to book item with id = %d once more time",
                             userId, bookingId)
             );
         }
 
+        booking.setStatus(status);
         if (approved) {
-            booking.setStatus(Status.APPROVED);
+            bookingWindows.approved(booking);
         } else {
-            booking.setStatus(Status.REJECTED);
+            bookingIntervalIndex.release(bookingWindows.lock(booking.getItem().getId()), booking);
         }
 
-        return BookingMapper.toBookingDto(bookingStorage.save(booking));
+        return BookingMapper.toBookingDto(booking);
     }
 
     @Override
@@ -101,112 +123,287 @@ public class BookingServiceImpl implements BookingService {
     }
 
     @Override
-    public List<BookingDto> getByBookerId(long userId, String state, int from, int size) {
+    public Slice<BookingDto> getByBookerId(long userId, String state, int from, int size) {
         User user = userService.findById(userId);
-        Sort sort = Sort.by(Sort.Direction.DESC, "start");
-        Pageable page = PageRequest.of(from / size, size, sort);
-        Page<Booking> bookings = Page.empty();
+        Pageable page = OffsetPageRequest.ofOffset(from, size, BOOKING_SORT);
+        Slice<Booking> bookings = new SliceImpl<>(Collections.emptyList());
+
+        switch (toBookingState(state)) {
+            case ALL:
+                bookings = bookingStorage.findByBookerIdOrderByStartDesc(userId, page);
+                break;
+
+            case CURRENT:
+                bookings = bookingStorage.findByBookerIdAndStartBeforeAndEndAfterOrderByStartDesc(
+                        userId,
+                        LocalDateTime.now(),
+                        LocalDateTime.now(),
+                        page
+                );
+                break;
+
+            case PAST:
+                bookings = bookingStorage.findByBookerIdAndEndBeforeOrderByStartDesc(
+                        userId,
+                        LocalDateTime.now(),
+                        page
+                );
+                break;
+
+            case FUTURE:
+                bookings = bookingStorage.findByBookerIdAndStartAfterOrderByStartDesc(
+                        userId,
+                        LocalDateTime.now(),
+                        page
+                );
+                break;
+
+            case WAITING:
+                bookings = bookingStorage.findByBookerIdAndStatusOrderByStartDesc(userId, Status.WAITING, page);
+                break;
+
+            case REJECTED:
+                bookings = bookingStorage.findByBookerIdAndStatusOrderByStartDesc(userId, Status.REJECTED, page);
+                break;
+        }
 
-        try {
-            switch (BookingState.valueOf(state)) {
-                case ALL:
-                    bookings = bookingStorage.findByBookerIdOrderByStartDesc(userId, page);
-                    break;
-
-                case CURRENT:
-                    bookings = bookingStorage.findByBookerIdAndStartBeforeAndEndAfterOrderByStartDesc(
-                            userId,
-                            LocalDateTime.now(),
-                            LocalDateTime.now(),
-                            page
-                    );
-                    break;
-
-                case PAST:
-                    bookings = bookingStorage.findByBookerIdAndEndBeforeOrderByStartDesc(
-                            userId,
-                            LocalDateTime.now(),
-                            page
-                    );
-                    break;
-
-                case FUTURE:
-                    bookings = bookingStorage.findByBookerIdAndStartAfterOrderByStartDesc(
-                            userId,
-                            LocalDateTime.now(),
-                            page
-                    );
-                    break;
-
-                case WAITING:
-                    bookings = bookingStorage.findByBookerIdAndStatusOrderByStartDesc(userId, Status.WAITING, page);
-                    break;
-
-                case REJECTED:
-                    bookings = bookingStorage.findByBookerIdAndStatusOrderByStartDesc(userId, Status.REJECTED, page);
-                    break;
-            }
-        } catch (IllegalArgumentException e) {
-            throw new NotAvailableException("Unknown state: UNSUPPORTED_STATUS");
+        return bookings.map(BookingMapper::toBookingDto);
+    }
+
+    @Override
+    public Slice<BookingDto> getByBookerId(long userId, String state, Cursor cursor, int size) {
+        User user = userService.findById(userId);
+        Pageable page = PageRequest.of(0, size);
+        LocalDateTime start = cursor.getTimestamp();
+        long id = cursor.getId();
+        Slice<Booking> bookings = new SliceImpl<>(Collections.emptyList());
+
+        switch (toBookingState(state)) {
+            case ALL:
+                bookings = bookingStorage.seekByBookerId(userId, start, id, page);
+                break;
+
+            case CURRENT:
+                bookings = bookingStorage.seekByBookerIdCurrent(userId, LocalDateTime.now(), start, id, page);
+                break;
+
+            case PAST:
+                bookings = bookingStorage.seekByBookerIdPast(userId, LocalDateTime.now(), start, id, page);
+                break;
+
+            case FUTURE:
+                bookings = bookingStorage.seekByBookerIdFuture(userId, LocalDateTime.now(), start, id, page);
+                break;
+
+            case WAITING:
+                bookings = bookingStorage.seekByBookerIdAndStatus(userId, Status.WAITING, start, id, page);
+                break;
+
+            case REJECTED:
+                bookings = bookingStorage.seekByBookerIdAndStatus(userId, Status.REJECTED, start, id, page);
+                break;
+        }
+
+        return bookings.map(BookingMapper::toBookingDto);
+    }
+
+    @Override
+    public long countByBookerId(long userId, String state) {
+        userService.findById(userId);
+
+        switch (toBookingState(state)) {
+            case CURRENT:
+                return bookingStorage.countByBookerIdAndStartBeforeAndEndAfter(
+                        userId,
+                        LocalDateTime.now(),
+                        LocalDateTime.now()
+                );
+
+            case PAST:
+                return bookingStorage.countByBookerIdAndEndBefore(userId, LocalDateTime.now());
+
+            case FUTURE:
+                return bookingStorage.countByBookerIdAndStartAfter(userId, LocalDateTime.now());
+
+            case WAITING:
+                return bookingStorage.countByBookerIdAndStatus(userId, Status.WAITING);
+
+            case REJECTED:
+                return bookingStorage.countByBookerIdAndStatus(userId, Status.REJECTED);
+
+            case ALL:
+            default:
+                return bookingStorage.countByBookerId(userId);
+        }
+    }
+
+    @Override
+    public Slice<BookingDto> getByOwnerId(long userId, String state, int from, int size) {
+        User user = userService.findById(userId);
+        Pageable page = OffsetPageRequest.ofOffset(from, size, BOOKING_SORT);
+        Slice<Booking> bookings = new SliceImpl<>(Collections.emptyList());
+
+        switch (toBookingState(state)) {
+            case ALL:
+                bookings = bookingStorage.findByItemUserOrderByStartDesc(user, page);
+                break;
+
+            case CURRENT:
+                bookings = bookingStorage.findByItemUserAndStartBeforeAndEndAfterOrderByStartDesc(
+                        user,
+                        LocalDateTime.now(),
+                        LocalDateTime.now(),
+                        page
+                );
+                break;
+
+            case PAST:
+                bookings = bookingStorage.findByItemUserAndEndBeforeOrderByStartDesc(
+                        user,
+                        LocalDateTime.now(),
+                        page
+                );
+                break;
+
+            case FUTURE:
+                bookings = bookingStorage.findByItemUserAndStartAfterOrderByStartDesc(
+                        user,
+                        LocalDateTime.now(),
+                        page
+                );
+                break;
+
+            case WAITING:
+                bookings = bookingStorage.findByItemUserAndStatusOrderByStartDesc(user, Status.WAITING, page);
+                break;
+
+            case REJECTED:
+                bookings = bookingStorage.findByItemUserAndStatusOrderByStartDesc(user, Status.REJECTED, page);
+                break;
+        }
+
+        return bookings.map(BookingMapper::toBookingDto);
+    }
+
+    @Override
+    public Slice<BookingDto> getByOwnerId(long userId, String state, Cursor cursor, int size) {
+        User user = userService.findById(userId);
+        Pageable page = PageRequest.of(0, size);
+        LocalDateTime start = cursor.getTimestamp();
+        long id = cursor.getId();
+        Slice<Booking> bookings = new SliceImpl<>(Collections.emptyList());
+
+        switch (toBookingState(state)) {
+            case ALL:
+                bookings = bookingStorage.seekByItemUser(user, start, id, page);
+                break;
+
+            case CURRENT:
+                bookings = bookingStorage.seekByItemUserCurrent(user, LocalDateTime.now(), start, id, page);
+                break;
+
+            case PAST:
+                bookings = bookingStorage.seekByItemUserPast(user, LocalDateTime.now(), start, id, page);
+                break;
+
+            case FUTURE:
+                bookings = bookingStorage.seekByItemUserFuture(user, LocalDateTime.now(), start, id, page);
+                break;
+
+            case WAITING:
+                bookings = bookingStorage.seekByItemUserAndStatus(user, Status.WAITING, start, id, page);
+                break;
+
+            case REJECTED:
+                bookings = bookingStorage.seekByItemUserAndStatus(user, Status.REJECTED, start, id, page);
+                break;
         }
 
-        return bookings.stream()
-                .map(BookingMapper::toBookingDto)
-                .collect(Collectors.toList());
+        return bookings.map(BookingMapper::toBookingDto);
     }
 
     @Override
-    public List<BookingDto> getByOwnerId(long userId, String state, int from, int size) {
+    public long countByOwnerId(long userId, String state) {
         User user = userService.findById(userId);
-        Sort sort = Sort.by(Sort.Direction.DESC, "start");
-        Pageable page = PageRequest.of(from / size, size, sort);
-        Page<Booking> bookings = Page.empty();
 
+        switch (toBookingState(state)) {
+            case CURRENT:
+                return bookingStorage.countByItemUserAndStartBeforeAndEndAfter(
+                        user,
+                        LocalDateTime.now(),
+                        LocalDateTime.now()
+                );
+
+            case PAST:
+                return bookingStorage.countByItemUserAndEndBefore(user, LocalDateTime.now());
+
+            case FUTURE:
+                return bookingStorage.countByItemUserAndStartAfter(user, LocalDateTime.now());
+
+            case WAITING:
+                return bookingStorage.countByItemUserAndStatus(user, Status.WAITING);
+
+            case REJECTED:
+                return bookingStorage.countByItemUserAndStatus(user, Status.REJECTED);
+
+            case ALL:
+            default:
+                return bookingStorage.countByItemUser(user);
+        }
+    }
+
+    /**
+     * Hands every booking of the owner's items to {@code consumer}, newest first, as it is read from the cursor. Each
+     * row is detached once mapped, so the persistence context doesn't grow with the history.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportByOwnerId(long userId, String state, Consumer<BookingDto> consumer) {
+        User user = userService.findById(userId);
+        BookingState bookingState = toBookingState(state);
+
+        try (Stream<Booking> bookings = streamByOwner(user, bookingState)) {
+            bookings.forEach(booking -> {
+                consumer.accept(BookingMapper.toBookingDto(booking));
+                entityManager.detach(booking);
+                entityManager.detach(booking.getItem());
+                entityManager.detach(booking.getBooker());
+            });
+        }
+    }
+
+    /**
+     * A rejected booking stops blocking its item once the rejection commits. Freed any earlier, a booking overlapping it
+     * could be let in while the rejection may still roll back.
+     */
+    private Stream<Booking> streamByOwner(User user, BookingState state) {
+        switch (state) {
+            case CURRENT:
+                return bookingStorage.streamByItemUserCurrent(user, LocalDateTime.now());
+
+            case PAST:
+                return bookingStorage.streamByItemUserPast(user, LocalDateTime.now());
+
+            case FUTURE:
+                return bookingStorage.streamByItemUserFuture(user, LocalDateTime.now());
+
+            case WAITING:
+                return bookingStorage.streamByItemUserAndStatus(user, Status.WAITING);
+
+            case REJECTED:
+                return bookingStorage.streamByItemUserAndStatus(user, Status.REJECTED);
+
+            case ALL:
+            default:
+                return bookingStorage.streamByItemUser(user);
+        }
+    }
+
+    private static BookingState toBookingState(String state) {
         try {
-            switch (BookingState.valueOf(state)) {
-                case ALL:
-                    bookings = bookingStorage.findByItemUserOrderByStartDesc(user, page);
-                    break;
-
-                case CURRENT:
-                    bookings = bookingStorage.findByItemUserAndStartBeforeAndEndAfterOrderByStartDesc(
-                            user,
-                            LocalDateTime.now(),
-                            LocalDateTime.now(),
-                            page
-                    );
-                    break;
-
-                case PAST:
-                    bookings = bookingStorage.findByItemUserAndEndBeforeOrderByStartDesc(
-                            user,
-                            LocalDateTime.now(),
-                            page
-                    );
-                    break;
-
-                case FUTURE:
-                    bookings = bookingStorage.findByItemUserAndStartAfterOrderByStartDesc(
-                            user,
-                            LocalDateTime.now(),
-                            page
-                    );
-                    break;
-
-                case WAITING:
-                    bookings = bookingStorage.findByItemUserAndStatusOrderByStartDesc(user, Status.WAITING, page);
-                    break;
-
-                case REJECTED:
-                    bookings = bookingStorage.findByItemUserAndStatusOrderByStartDesc(user, Status.REJECTED, page);
-                    break;
-            }
+            return BookingState.valueOf(state);
         } catch (IllegalArgumentException e) {
             throw new NotAvailableException("Unknown state: UNSUPPORTED_STATUS");
         }
-
-        return bookings.getContent().stream()
-                .map(BookingMapper::toBookingDto)
-                .collect(Collectors.toList());
     }
 }
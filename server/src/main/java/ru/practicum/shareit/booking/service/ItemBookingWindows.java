@@ -0,0 +1,169 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.ItemBookingWindow;
+import ru.practicum.shareit.booking.Status;
+import ru.practicum.shareit.booking.storage.BookingStorage;
+import ru.practicum.shareit.booking.storage.ItemBookingWindowStorage;
+
+import javax.persistence.EntityManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains the {@link ItemBookingWindow} of every item with approved bookings, so item reads get the last and next
+ * booking from a single lookup. A window is worked out again when a booking of its item is approved, and rolled
+ * forward by {@link #rollForward} once its next booking has started. Reads work out a window that is due but not
+ * rolled forward yet themselves, so they never see a stale one.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ItemBookingWindows {
+    private static final int ROLL_BATCH_SIZE = 500;
+    private static final String INSERT_WINDOW = "insert into item_booking_windows (item_id) values (?)";
+
+    private final ItemBookingWindowStorage windowStorage;
+    private final BookingStorage bookingStorage;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+
+    public Optional<ItemBookingWindow> find(long itemId) {
+        return Optional.ofNullable(find(List.of(itemId)).get(itemId));
+    }
+
+    /**
+     * Current windows of the items, keyed by item id. Items that were never booked have none.
+     */
+    public Map<Long, ItemBookingWindow> find(Collection<Long> itemIds) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, ItemBookingWindow> windows = windowStorage.findWithBookingsByItemIds(itemIds).stream()
+                .collect(Collectors.toMap(ItemBookingWindow::getItemId, Function.identity()));
+
+        List<ItemBookingWindow> due = windows.values().stream()
+                .filter(window -> window.isDue(now))
+                .collect(Collectors.toList());
+        if (!due.isEmpty()) {
+            // The windows are detached, so this only changes what the caller sees
+            refresh(due, now);
+        }
+        return windows;
+    }
+
+    /**
+     * Works out the window of the booking's item again. Must run in the transaction approving the booking, so the
+     * window commits together with the approval.
+     */
+    @Transactional
+    public void approved(Booking booking) {
+        refresh(List.of(lock(booking.getItem().getId())), LocalDateTime.now());
+    }
+
+    /**
+     * Locks the item's window row until the current transaction ends, creating it first if the item has none. Booking
+     * creation, approval and rejection of an item all queue up on this row, on every server instance.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public ItemBookingWindow lock(long itemId) {
+        return windowStorage.lockByItemId(itemId)
+                .orElseGet(() -> {
+                    insertIfAbsent(itemId);
+                    return windowStorage.lockByItemId(itemId).orElseThrow();
+                });
+    }
+
+    /**
+     * Rolls the due windows forward, {@value #ROLL_BATCH_SIZE} per transaction, until none is left.
+     */
+    @Scheduled(fixedDelayString = "${shareit.bookings.window-roll-delay:PT1M}")
+    public void rollForward() {
+        int rolled;
+        int total = 0;
+        do {
+            rolled = transactionTemplate.execute(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                List<ItemBookingWindow> due = windowStorage.lockDue(now, PageRequest.of(0, ROLL_BATCH_SIZE));
+                refresh(due, now);
+                return due.size();
+            });
+            total += rolled;
+        } while (rolled == ROLL_BATCH_SIZE);
+
+        if (total > 0) {
+            log.debug("Rolled forward {} item booking windows", total);
+        }
+    }
+
+    /**
+     * Inserts an empty window for the item unless a concurrent booking call got there first. The insert bypasses the
+     * persistence context and runs under a savepoint, so losing the race on the primary key leaves the caller's
+     * transaction usable. Pending inserts are flushed first, since the item may have been created in the same
+     * transaction.
+     */
+    private void insertIfAbsent(long itemId) {
+        entityManager.flush();
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            Savepoint savepoint = connection.setSavepoint();
+            try (PreparedStatement insert = connection.prepareStatement(INSERT_WINDOW)) {
+                insert.setLong(1, itemId);
+                insert.executeUpdate();
+            } catch (SQLException e) {
+                connection.rollback(savepoint);
+                DataAccessException translated = jdbcTemplate.getExceptionTranslator()
+                        .translate("insertIfAbsent", INSERT_WINDOW, e);
+                if (!(translated instanceof DuplicateKeyException)) {
+                    throw e;
+                }
+                log.debug("Booking window of item with id = {} was created by a concurrent booking call", itemId);
+                return null;
+            }
+            connection.releaseSavepoint(savepoint);
+            return null;
+        });
+    }
+
+    private void refresh(List<ItemBookingWindow> windows, LocalDateTime now) {
+        if (windows.isEmpty()) {
+            return;
+        }
+
+        List<Long> itemIds = windows.stream()
+                .map(ItemBookingWindow::getItemId)
+                .collect(Collectors.toList());
+        Map<Long, Booking> lastBookings = new HashMap<>();
+        Map<Long, Booking> nextBookings = new HashMap<>();
+        for (Booking booking : bookingStorage.findLastAndNextByItemIds(itemIds, Status.APPROVED, now)) {
+            Map<Long, Booking> target = booking.getStart().isBefore(now) ? lastBookings : nextBookings;
+            target.putIfAbsent(booking.getItem().getId(), booking);
+        }
+
+        for (ItemBookingWindow window : windows) {
+            Booking nextBooking = nextBookings.get(window.getItemId());
+            window.setLastBooking(lastBookings.get(window.getItemId()));
+            window.setNextBooking(nextBooking);
+            window.setRollAt(nextBooking == null ? null : nextBooking.getStart());
+        }
+    }
+}
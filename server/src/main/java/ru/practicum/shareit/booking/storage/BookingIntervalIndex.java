@@ -0,0 +1,238 @@
+package ru.practicum.shareit.booking.storage;
+
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.ItemBookingWindow;
+import ru.practicum.shareit.booking.Status;
+import ru.practicum.shareit.exception.NotAvailableException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Per-item sorted lists of WAITING and APPROVED booking intervals, loaded lazily from the bookings table.
+ * Bookings made before the index existed may overlap, so overlapping intervals are kept together in one block
+ * spanning all of them. Blocks never overlap, so the only candidate for a conflict with a new interval is
+ * the block starting right before its end, which makes the check a single O(log n) lookup.
+ * <p>
+ * The callers hold the lock on the item's {@link ItemBookingWindow} row, so bookings of one item are serialized across
+ * all server instances while bookings of unrelated items are not. Every change bumps the window's
+ * {@code bookingsVersion}, and the intervals here are only trusted at the version they were loaded or last updated
+ * at. Intervals of an item changed by another instance are therefore loaded again, and changes are only applied
+ * here once their transaction has committed.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookingIntervalIndex {
+    private static final Set<Status> BLOCKING_STATUSES = EnumSet.of(Status.WAITING, Status.APPROVED);
+
+    private final BookingStorage bookingStorage;
+    private final ConcurrentMap<Long, ItemIntervals> items = new ConcurrentHashMap<>();
+
+    /**
+     * Saves a booking if its interval is free. Must run in the transaction holding the lock on {@code window}.
+     */
+    public Booking reserve(ItemBookingWindow window, LocalDateTime start, LocalDateTime end, Supplier<Booking> save) {
+        long itemId = window.getItemId();
+        long version = window.getBookingsVersion();
+        ItemIntervals intervals = items.computeIfAbsent(itemId, id -> new ItemIntervals());
+
+        intervals.lock.lock();
+        try {
+            if (intervals.version != version) {
+                intervals.clear();
+                bookingStorage.findByItemIdAndStatusInAndEndAfter(itemId, BLOCKING_STATUSES, LocalDateTime.now())
+                        .forEach(booking -> intervals.add(booking.getId(), booking.getStart(), booking.getEnd()));
+                intervals.version = version;
+            }
+
+            intervals.removeEndedBefore(LocalDateTime.now());
+
+            if (intervals.overlaps(start, end)) {
+                throw new NotAvailableException(
+                        String.format("Item with id = %d is already booked between %s and %s", itemId, start, end)
+                );
+            }
+        } finally {
+            intervals.lock.unlock();
+        }
+
+        Booking booking = save.get();
+        window.setBookingsVersion(version + 1);
+        afterCommit(itemId, version,
+                committed -> committed.add(booking.getId(), booking.getStart(), booking.getEnd()));
+        return booking;
+    }
+
+    /**
+     * Frees the interval of a booking which no longer blocks its item. Must run in the transaction holding the lock
+     * on {@code window}.
+     */
+    public void release(ItemBookingWindow window, Booking booking) {
+        long version = window.getBookingsVersion();
+        window.setBookingsVersion(version + 1);
+        afterCommit(window.getItemId(), version, committed -> committed.remove(booking.getId()));
+    }
+
+    /**
+     * Drops the intervals of items whose bookings have all ended. They are loaded again on the next booking.
+     */
+    @Scheduled(fixedDelayString = "${shareit.bookings.interval-sweep-delay:PT10M}")
+    public void evictEnded() {
+        LocalDateTime now = LocalDateTime.now();
+        int evicted = 0;
+        for (Map.Entry<Long, ItemIntervals> entry : items.entrySet()) {
+            ItemIntervals intervals = entry.getValue();
+            if (!intervals.lock.tryLock()) {
+                continue;
+            }
+            try {
+                intervals.removeEndedBefore(now);
+                if (intervals.blocks.isEmpty() && items.remove(entry.getKey(), intervals)) {
+                    evicted++;
+                }
+            } finally {
+                intervals.lock.unlock();
+            }
+        }
+
+        if (evicted > 0) {
+            log.debug("Evicted booking intervals of {} items", evicted);
+        }
+    }
+
+    /**
+     * Applies a change made at {@code version} once its transaction commits, if the intervals are still at that
+     * version. Otherwise they are stale anyway and get loaded again on the next booking.
+     */
+    private void afterCommit(long itemId, long version, Consumer<ItemIntervals> change) {
+        Runnable apply = () -> {
+            ItemIntervals intervals = items.get(itemId);
+            if (intervals == null) {
+                return;
+            }
+
+            intervals.lock.lock();
+            try {
+                if (intervals.version == version) {
+                    change.accept(intervals);
+                    intervals.version = version + 1;
+                }
+            } finally {
+                intervals.lock.unlock();
+            }
+        };
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply.run();
+            }
+        });
+    }
+
+    private static class ItemIntervals {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final TreeMap<LocalDateTime, Block> blocks = new TreeMap<>();
+        private final Map<Long, Block> blocksByBookingId = new HashMap<>();
+        // Version of the item's window these intervals match, or -1 before they are loaded
+        private long version = -1;
+
+        private void clear() {
+            blocks.clear();
+            blocksByBookingId.clear();
+        }
+
+        private boolean overlaps(LocalDateTime start, LocalDateTime end) {
+            Map.Entry<LocalDateTime, Block> previous = blocks.lowerEntry(end);
+            return previous != null && previous.getValue().end.isAfter(start);
+        }
+
+        private void add(long bookingId, LocalDateTime start, LocalDateTime end) {
+            Block block = new Block(new Interval(bookingId, start, end));
+
+            Map.Entry<LocalDateTime, Block> previous = blocks.lowerEntry(block.end);
+            while (previous != null && previous.getValue().end.isAfter(block.start)) {
+                block.absorb(blocks.remove(previous.getKey()));
+                previous = blocks.lowerEntry(block.end);
+            }
+
+            // Only an empty interval can share its start with another block without overlapping it
+            Block sameStart = blocks.remove(block.start);
+            if (sameStart != null) {
+                block.absorb(sameStart);
+            }
+
+            blocks.put(block.start, block);
+            block.intervals.forEach(interval -> blocksByBookingId.put(interval.getBookingId(), block));
+        }
+
+        private void remove(long bookingId) {
+            Block block = blocksByBookingId.remove(bookingId);
+            if (block == null) {
+                return;
+            }
+
+            blocks.remove(block.start);
+            // The rest of the block may no longer overlap without this interval, so it is split up again
+            block.intervals.stream()
+                    .filter(interval -> interval.getBookingId() != bookingId)
+                    .forEach(interval -> add(interval.getBookingId(), interval.getStart(), interval.getEnd()));
+        }
+
+        private void removeEndedBefore(LocalDateTime now) {
+            while (!blocks.isEmpty() && blocks.firstEntry().getValue().end.isBefore(now)) {
+                blocks.pollFirstEntry().getValue().intervals
+                        .forEach(interval -> blocksByBookingId.remove(interval.getBookingId()));
+            }
+        }
+    }
+
+    private static class Block {
+        private final List<Interval> intervals = new ArrayList<>();
+        private LocalDateTime start;
+        private LocalDateTime end;
+
+        private Block(Interval interval) {
+            intervals.add(interval);
+            start = interval.getStart();
+            end = interval.getEnd();
+        }
+
+        private void absorb(Block other) {
+            intervals.addAll(other.intervals);
+            start = start.isBefore(other.start) ? start : other.start;
+            end = end.isAfter(other.end) ? end : other.end;
+        }
+    }
+
+    @Value
+    private static class Interval {
+        long bookingId;
+        LocalDateTime start;
+        LocalDateTime end;
+    }
+}
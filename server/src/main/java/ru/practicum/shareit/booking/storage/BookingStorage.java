@@ -1,48 +1,380 @@
 package ru.practicum.shareit.booking.storage;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.Booking;
 import ru.practicum.shareit.booking.Status;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.User;
 
+import javax.persistence.QueryHint;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Transactional(readOnly = true)
 public interface BookingStorage extends JpaRepository<Booking, Long> {
-    Page<Booking> findByBookerIdOrderByStartDesc(long userId, Pageable page);
+    String EXPORT_FETCH_SIZE = "500";
 
-    Page<Booking> findByBookerIdAndStartBeforeAndEndAfterOrderByStartDesc(
+    @Override
+    @EntityGraph(attributePaths = {"item", "item.user", "booker"})
+    Optional<Booking> findById(Long id);
+
+    @EntityGraph(attributePaths = {"item", "booker"})
+    @Query("select b " +
+            "from Booking as b " +
+            "where b.booker.id = :userId " +
+            "order by b.start desc")
+    Slice<Booking> findByBookerIdOrderByStartDesc(long userId, Pageable page);
+
+    @EntityGraph(attributePaths = {"item", "booker"})
+    @Query("select b " +
+            "from Booking as b " +
+            "where b.booker.id = :userId " +
+            "and b.start < :startBefore and b.end > :endAfter " +
+            "order by b.start desc")
+    Slice<Booking> findByBookerIdAndStartBeforeAndEndAfterOrderByStartDesc(
             long userId,
-            LocalDateTime after,
-            LocalDateTime before,
+            LocalDateTime startBefore,
+            LocalDateTime endAfter,
             Pageable page);
 
-    Page<Booking> findByBookerIdAndEndBeforeOrderByStartDesc(long userId, LocalDateTime before, Pageable page);
+    @EntityGraph(attributePaths = {"item", "booker"})
+    @Query("select b " +
+            "from Booking as b " +
+            "where b.booker.id = :userId " +
+            "and b.end < :before " +
+            "order by b.start desc")
+    Slice<Booking> findByBookerIdAndEndBeforeOrderByStartDesc(long userId, LocalDateTime before, Pageable page);
 
-    Page<Booking> findByBookerIdAndStartAfterOrderByStartDesc(long userId, LocalDateTime after, Pageable page);
+    @EntityGraph(attributePaths = {"item", "booker"})
+    @Query("select b " +
+            "from Booking as b " +
+            "where b.booker.id = :userId " +
+            "and b.start > :after " +
+            "order by b.start desc")
+    Slice<Booking> findByBookerIdAndStartAfterOrderByStartDesc(long userId, LocalDateTime after, Pageable page);
 
-    Page<Booking> findByBookerIdAndStatusOrderByStartDesc(long userId, Status status, Pageable page);
+    @EntityGraph(attributePaths = {"item", "booker"})
+    @Query("select b " +
+            "from Booking as b " +
+            "where b.booker.id = :userId " +
+            "and b.status = :status " +
+            "order by b.start desc")
+    Slice<Booking> findByBookerIdAndStatusOrderByStartDesc(long userId, Status status, Pageable page);
 
-    Page<Booking> findByItemUserOrderByStartDesc(User user, Pageable page);
+    @Query("select b " +
+            "from Booking as b " +
+            "join fetch b.item as it " +
+            "join fetch b.booker " +
+            "where it.user = :user " +
+            "order by b.start desc")
+    Slice<Booking> findByItemUserOrderByStartDesc(User user, Pageable page);
 
-    Page<Booking> findByItemUserAndStartBeforeAndEndAfterOrderByStartDesc(
+    @Query("select b " +
+            "from Booking as b " +
+            "join fetch b.item as it " +
+            "join fetch b.booker " +
+            "where it.user = :user " +
+            "and b.start < :startBefore and b.end > :endAfter " +
+            "order by b.start desc")
+    Slice<Booking> findByItemUserAndStartBeforeAndEndAfterOrderByStartDesc(
             User user,
-            LocalDateTime after,
-            LocalDateTime before,
+            LocalDateTime startBefore,
+            LocalDateTime endAfter,
             Pageable page);
 
-    Page<Booking> findByItemUserAndEndBeforeOrderByStartDesc(User user, LocalDateTime before, Pageable page);
+    @Query("select b " +
+            "from Booking as b " +
+            "join fetch b.item as it " +
+            "join fetch b.booker " +
+            "where it.user = :user " +
+            "and b.end < :before " +
+            "order by b.start desc")
+    Slice<Booking> findByItemUserAndEndBeforeOrderByStartDesc(User user, LocalDateTime before, Pageable page);
+
+    @Query("select b " +
+            "from Booking as b " +
+            "join fetch b.item as it " +
+            "join fetch b.booker " +
+            "where it.user = :user " +
+            "and b.start > :after " +
+            "order by b.start desc")
+    Slice<Booking> findByItemUserAndStartAfterOrderByStartDesc(User user, LocalDateTime after, Pageable page);
+
+    @Query("select b " +
+            "from Booking as b " +
+            "join fetch b.item as it " +
+            "join fetch b.booker " +
+            "where it.user = :user " +
+            "and b.status = :status " +
+            "order by b.start desc")
+    Slice<Booking> findByItemUserAndStatusOrderByStartDesc(User user, Status status, Pageable page);
+
+    @EntityGraph(attributePaths = {"item", "booker"})
+    @Query("select b " +
+            "from Booking as b " +
+            "where b.booker.id = :userId " +
+            "and (b.start < :start or (b.start = :start and b.id < :id)) " +
+            "order by b.start desc, b.id desc")
+    Slice<Booking> seekByBookerId(long userId, LocalDateTime start, long id, Pageable page);
+
+    @EntityGraph(attributePaths = {"item", "booker"})
+    @Query("select b " +
+            "from Booking as b " +
+            "where b.booker.id = :userId " +
+            "and b.start < :now and b.end > :now " +
+            "and (b.start < :start or (b.start = :start and b.id < :id)) " +
+            "order by b.start desc, b.id desc")
+    Slice<Booking> seekByBookerIdCurrent(long userId, LocalDateTime now, LocalDateTime start, long id, Pageable page);
+
+    @EntityGraph(attributePaths = {"item", "booker"})
+    @Query("select b " +
+            "from Booking as b " +
+            "where b.booker.id = :userId " +
+            "and b.end < :now " +
+            "and (b.start < :start or (b.start = :start and b.id < :id)) " +
+            "order by b.start desc, b.id desc")
+    Slice<Booking> seekByBookerIdPast(long userId, LocalDateTime now, LocalDateTime start, long id, Pageable page);
+
+    @EntityGraph(attributePaths = {"item", "booker"})
+    @Query("select b " +
+            "from Booking as b " +
+            "where b.booker.id = :userId " +
+            "and b.start > :now " +
+            "and (b.start < :start or (b.start = :start and b.id < :id)) " +
+            "order by b.start desc, b.id desc")
+    Slice<Booking> seekByBookerIdFuture(long userId, LocalDateTime now, LocalDateTime start, long id, Pageable page);
+
+    @EntityGraph(attributePaths = {"item", "booker"})
+    @Query("select b " +
+            "from Booking as b " +
+            "where b.booker.id = :userId " +
+            "and b.status = :status " +
+            "and (b.start < :start or (b.start = :start and b.id < :id)) " +
+            "order by b.start desc, b.id desc")
+    Slice<Booking> seekByBookerIdAndStatus(long userId, Status status, LocalDateTime start, long id, Pageable page);
+
+    @Query("select b " +
+            "from Booking as b " +
+            "join fetch b.item as it " +
+            "join fetch b.booker " +
+            "where it.user = :user " +
+            "and (b.start < :start or (b.start = :start and b.id < :id)) " +
+            "order by b.start desc, b.id desc")
+    Slice<Booking> seekByItemUser(User user, LocalDateTime start, long id, Pageable page);
+
+    @Query("select b " +
+            "from Booking as b " +
+            "join fetch b.item as it " +
+            "join fetch b.booker " +
+            "where it.user = :user " +
+            "and b.start < :now and b.end > :now " +
+            "and (b.start < :start or (b.start = :start and b.id < :id)) " +
+            "order by b.start desc, b.id desc")
+    Slice<Booking> seekByItemUserCurrent(User user, LocalDateTime now, LocalDateTime start, long id, Pageable page);
+
+    @Query("select b " +
+            "from Booking as b " +
+            "join fetch b.item as it " +
+            "join fetch b.booker " +
+            "where it.user = :user " +
+            "and b.end < :now " +
+            "and (b.start < :start or (b.start = :start and b.id < :id)) " +
+            "order by b.start desc, b.id desc")
+    Slice<Booking> seekByItemUserPast(User user, LocalDateTime now, LocalDateTime start, long id, Pageable page);
+
+    @Query("select b " +
+            "from Booking as b " +
+            "join fetch b.item as it " +
+            "join fetch b.booker " +
+            "where it.user = :user " +
+            "and b.start > :now " +
+            "and (b.start < :start or (b.start = :start and b.id < :id)) " +
+            "order by b.start desc, b.id desc")
+    Slice<Booking> seekByItemUserFuture(User user, LocalDateTime now, LocalDateTime start, long id, Pageable page);
+
+    @Query("select b " +
+            "from Booking as b " +
+            "join fetch b.item as it " +
+            "join fetch b.booker " +
+            "where it.user = :user " +
+            "and b.status = :status " +
+            "and (b.start < :start or (b.start = :start and b.id < :id)) " +
+            "order by b.start desc, b.id desc")
+    Slice<Booking> seekByItemUserAndStatus(User user, Status status, LocalDateTime start, long id, Pageable page);
+
+    /**
+     * Reads the owner's bookings through a forward-only cursor, {@value #EXPORT_FETCH_SIZE} rows per round trip, as
+     * read-only entities. Like the other export streams, it must be consumed and closed inside a transaction, which is
+     * also what keeps the Postgres cursor open.
+     */
+    @QueryHints({
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true")
+    })
+    @Query("select b " +
+            "from Booking as b " +
+            "join fetch b.item as it " +
+            "join fetch b.booker " +
+            "where it.user = :user " +
+            "order by b.start desc, b.id desc")
+    Stream<Booking> streamByItemUser(User user);
 
-    Page<Booking> findByItemUserAndStartAfterOrderByStartDesc(User user, LocalDateTime after, Pageable page);
+    @QueryHints({
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true")
+    })
+    @Query("select b " +
+            "from Booking as b " +
+            "join fetch b.item as it " +
+            "join fetch b.booker " +
+            "where it.user = :user " +
+            "and b.start < :now and b.end > :now " +
+            "order by b.start desc, b.id desc")
+    Stream<Booking> streamByItemUserCurrent(User user, LocalDateTime now);
 
-    Page<Booking> findByItemUserAndStatusOrderByStartDesc(User user, Status status, Pageable page);
+    @QueryHints({
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true")
+    })
+    @Query("select b " +
+            "from Booking as b " +
+            "join fetch b.item as it " +
+            "join fetch b.booker " +
+            "where it.user = :user " +
+            "and b.end < :now " +
+            "order by b.start desc, b.id desc")
+    Stream<Booking> streamByItemUserPast(User user, LocalDateTime now);
 
-    List<Booking> findByItemAndItemUserAndStatusOrderByStartAsc(Item item, User user, Status status);
+    @QueryHints({
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true")
+    })
+    @Query("select b " +
+            "from Booking as b " +
+            "join fetch b.item as it " +
+            "join fetch b.booker " +
+            "where it.user = :user " +
+            "and b.start > :now " +
+            "order by b.start desc, b.id desc")
+    Stream<Booking> streamByItemUserFuture(User user, LocalDateTime now);
+
+    @QueryHints({
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true")
+    })
+    @Query("select b " +
+            "from Booking as b " +
+            "join fetch b.item as it " +
+            "join fetch b.booker " +
+            "where it.user = :user " +
+            "and b.status = :status " +
+            "order by b.start desc, b.id desc")
+    Stream<Booking> streamByItemUserAndStatus(User user, Status status);
+
+    @Query("select count(b) " +
+            "from Booking as b " +
+            "where b.booker.id = :userId")
+    long countByBookerId(long userId);
+
+    @Query("select count(b) " +
+            "from Booking as b " +
+            "where b.booker.id = :userId " +
+            "and b.start < :startBefore and b.end > :endAfter")
+    long countByBookerIdAndStartBeforeAndEndAfter(long userId, LocalDateTime startBefore, LocalDateTime endAfter);
+
+    @Query("select count(b) " +
+            "from Booking as b " +
+            "where b.booker.id = :userId " +
+            "and b.end < :before")
+    long countByBookerIdAndEndBefore(long userId, LocalDateTime before);
+
+    @Query("select count(b) " +
+            "from Booking as b " +
+            "where b.booker.id = :userId " +
+            "and b.start > :after")
+    long countByBookerIdAndStartAfter(long userId, LocalDateTime after);
+
+    @Query("select count(b) " +
+            "from Booking as b " +
+            "where b.booker.id = :userId " +
+            "and b.status = :status")
+    long countByBookerIdAndStatus(long userId, Status status);
+
+    @Query("select count(b) " +
+            "from Booking as b " +
+            "where b.item.user = :user")
+    long countByItemUser(User user);
+
+    @Query("select count(b) " +
+            "from Booking as b " +
+            "where b.item.user = :user " +
+            "and b.start < :startBefore and b.end > :endAfter")
+    long countByItemUserAndStartBeforeAndEndAfter(User user, LocalDateTime startBefore, LocalDateTime endAfter);
+
+    @Query("select count(b) " +
+            "from Booking as b " +
+            "where b.item.user = :user " +
+            "and b.end < :before")
+    long countByItemUserAndEndBefore(User user, LocalDateTime before);
+
+    @Query("select count(b) " +
+            "from Booking as b " +
+            "where b.item.user = :user " +
+            "and b.start > :after")
+    long countByItemUserAndStartAfter(User user, LocalDateTime after);
+
+    @Query("select count(b) " +
+            "from Booking as b " +
+            "where b.item.user = :user " +
+            "and b.status = :status")
+    long countByItemUserAndStatus(User user, Status status);
+
+    @Query("select b " +
+            "from Booking as b " +
+            "where b.item.id in :itemIds " +
+            "and b.status = :status " +
+            "and (b.start = (select max(lb.start) " +
+            "from Booking as lb " +
+            "where lb.item = b.item " +
+            "and lb.status = :status " +
+            "and lb.start < :now) " +
+            "or b.start = (select min(nb.start) " +
+            "from Booking as nb " +
+            "where nb.item = b.item " +
+            "and nb.status = :status " +
+            "and nb.start > :now)) " +
+            "order by b.id")
+    List<Booking> findLastAndNextByItemIds(Collection<Long> itemIds, Status status, LocalDateTime now);
+
+    @Query("select b " +
+            "from Booking as b " +
+            "where b.item.id = :itemId " +
+            "and b.status in :statuses " +
+            "and b.end > :now")
+    List<Booking> findByItemIdAndStatusInAndEndAfter(long itemId, Collection<Status> statuses, LocalDateTime now);
 
     boolean existsByItemAndBookerAndStatusAndEndBefore(Item item, User user, Status status, LocalDateTime now);
+
+    /**
+     * Moves a booking to {@code status} only if it is still in {@code expected}, in a single statement.
+     *
+     * @return 1 if the booking was updated, 0 if its status had already changed
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update Booking as b " +
+            "set b.status = :status " +
+            "where b.id = :id " +
+            "and b.status = :expected")
+    int compareAndSetStatus(long id, Status expected, Status status);
 }
@@ -0,0 +1,44 @@
+package ru.practicum.shareit.booking.storage;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.ItemBookingWindow;
+
+import javax.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Transactional(readOnly = true)
+public interface ItemBookingWindowStorage extends JpaRepository<ItemBookingWindow, Long> {
+    @Query("select w " +
+            "from ItemBookingWindow as w " +
+            "left join fetch w.lastBooking " +
+            "left join fetch w.nextBooking " +
+            "where w.itemId in :itemIds")
+    List<ItemBookingWindow> findWithBookingsByItemIds(Collection<Long> itemIds);
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select w " +
+            "from ItemBookingWindow as w " +
+            "where w.itemId = :itemId")
+    Optional<ItemBookingWindow> lockByItemId(long itemId);
+
+    /**
+     * Locks a page of the windows due at {@code now}. Another instance rolling the same windows forward waits for the
+     * lock and then finds them no longer due.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select w " +
+            "from ItemBookingWindow as w " +
+            "where w.rollAt <= :now " +
+            "order by w.rollAt")
+    List<ItemBookingWindow> lockDue(LocalDateTime now, Pageable page);
+}
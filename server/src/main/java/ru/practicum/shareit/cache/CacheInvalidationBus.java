@@ -0,0 +1,14 @@
+package ru.practicum.shareit.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries second-level cache invalidations between server instances. Each instance publishes the cached entities it
+ * updated or deleted and evicts the ones the others did. Delivering an instance's own invalidations back to it is
+ * harmless. Without a bean of this type the cache stays local, which is all a single instance needs.
+ */
+public interface CacheInvalidationBus {
+    void publish(EntityInvalidation invalidation);
+
+    void subscribe(Consumer<EntityInvalidation> listener);
+}
@@ -0,0 +1,88 @@
+package ru.practicum.shareit.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.io.Serializable;
+
+/**
+ * Publishes committed updates and deletes of cached entities to the {@link CacheInvalidationBus} and evicts what other
+ * instances publish from the second-level cache. Does nothing when there is no bus.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EntityCacheInvalidator implements PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+    private final EntityManagerFactory entityManagerFactory;
+    private final ObjectProvider<CacheInvalidationBus> busProvider;
+
+    private SessionFactoryImplementor sessionFactory;
+    private CacheInvalidationBus bus;
+
+    @PostConstruct
+    void register() {
+        bus = busProvider.getIfAvailable();
+        if (bus == null) {
+            return;
+        }
+
+        sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        EventListenerRegistry listeners = sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class);
+        listeners.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        listeners.appendListeners(EventType.POST_COMMIT_DELETE, this);
+        bus.subscribe(this::evict);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        publish(event.getPersister(), event.getId());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        publish(event.getPersister(), event.getId());
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return persister.canWriteToCache();
+    }
+
+    /**
+     * Still abstract in Hibernate 5.6, which only calls {@link #requiresPostCommitHandling}.
+     */
+    @Override
+    @Deprecated
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return requiresPostCommitHandling(persister);
+    }
+
+    private void publish(EntityPersister persister, Serializable id) {
+        bus.publish(new EntityInvalidation(persister.getEntityName(), (Long) id));
+    }
+
+    private void evict(EntityInvalidation invalidation) {
+        log.debug("Evicting {} with id = {}", invalidation.getEntityName(), invalidation.getId());
+        sessionFactory.getCache().evictEntityData(invalidation.getEntityName(), invalidation.getId());
+    }
+}
@@ -0,0 +1,39 @@
+package ru.practicum.shareit.cache;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+import javax.cache.CacheManager;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Exports the hit ratio of every second-level cache region as {@code hibernate.second.level.cache.hit.ratio}. The raw
+ * hit, miss and put counts come with the Hibernate metrics Spring Boot binds once statistics are enabled. Hibernate
+ * doesn't see entries the cache drops on its own, so the JCache statistics of every region are bound as well, which
+ * adds {@code cache.evictions} (entries evicted by the region's size bound) tagged with the region as {@code cache}.
+ */
+@Component
+public class EntityCacheMetrics {
+    public EntityCacheMetrics(EntityCacheProperties properties, EntityManagerFactory entityManagerFactory,
+                              CacheManager entityCacheManager, MeterRegistry meterRegistry) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        for (String region : properties.getRegions().keySet()) {
+            Gauge.builder("hibernate.second.level.cache.hit.ratio", statistics, stats -> hitRatio(stats, region))
+                    .tag("region", region)
+                    .register(meterRegistry);
+            new JCacheMetrics<>(entityCacheManager.getCache(region), Tags.empty()).bindTo(meterRegistry);
+        }
+    }
+
+    private static double hitRatio(Statistics statistics, String region) {
+        CacheRegionStatistics regionStatistics = statistics.getDomainDataRegionStatistics(region);
+        long requests = regionStatistics.getHitCount() + regionStatistics.getMissCount();
+        return requests == 0 ? Double.NaN : (double) regionStatistics.getHitCount() / requests;
+    }
+}
@@ -0,0 +1,29 @@
+package ru.practicum.shareit.cache;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Size and time-to-live of each second-level cache region, e.g. {@code shareit.cache.entities.regions.items.ttl}.
+ * Every region an entity is cached in must be listed here, Hibernate refuses to start otherwise.
+ */
+@Component
+@ConfigurationProperties("shareit.cache.entities")
+@Getter
+@Setter
+public class EntityCacheProperties {
+    private Map<String, Region> regions = new HashMap<>();
+
+    @Getter
+    @Setter
+    public static class Region {
+        private long maxSize = 10_000;
+        private Duration ttl = Duration.ofMinutes(10);
+    }
+}
@@ -0,0 +1,12 @@
+package ru.practicum.shareit.cache;
+
+import lombok.Value;
+
+/**
+ * An entity changed or removed on one server instance, identified by its Hibernate entity name.
+ */
+@Value
+public class EntityInvalidation {
+    String entityName;
+    long id;
+}
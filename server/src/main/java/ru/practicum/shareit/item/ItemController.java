@@ -2,12 +2,19 @@ package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemBookingDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemImportDto;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.pagination.CountedSlice;
+import ru.practicum.shareit.pagination.Cursor;
 
+import java.io.InputStream;
 import java.util.List;
 
 /**
@@ -32,6 +39,16 @@ public class ItemController {
         return itemService.add(userId, itemDto);
     }
 
+    /**
+     * Accepts a JSON array or NDJSON stream of items and parses it as it arrives, so the upload is never held whole.
+     */
+    @PostMapping(path = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ItemImportDto importItems(@RequestHeader("X-Sharer-User-Id") long userId,
+                                     InputStream rows) {
+        log.info("User with id = {} importing items", userId);
+        return itemService.importItems(userId, rows);
+    }
+
     @PatchMapping("/{itemId}")
     public ItemDto update(@RequestHeader("X-Sharer-User-Id") Long userId,
                           @RequestBody ItemDto itemDto,
@@ -42,19 +59,30 @@ public class ItemController {
     }
 
     @GetMapping
-    public List<ItemBookingDto> findByUserId(@RequestHeader("X-Sharer-User-Id") long userId,
-                                             @RequestParam(defaultValue = "0", required = false) int from,
-                                             @RequestParam(defaultValue = "25", required = false) int size) {
+    public ResponseEntity<List<ItemBookingDto>> findByUserId(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                             @RequestParam(defaultValue = "0", required = false) int from,
+                                                             @RequestParam(defaultValue = "25", required = false) int size,
+                                                             @RequestParam(required = false) String cursor,
+                                                             @RequestParam(defaultValue = "false", required = false) boolean total) {
         log.info("User with id = {} trying to fetch item list", userId);
-        return itemService.findByUserId(userId, from, size);
+        Slice<ItemBookingDto> items = cursor == null
+                ? itemService.findByUserId(userId, from, size)
+                : itemService.findByUserId(userId, Cursor.decode(cursor), size);
+        Long count = total ? itemService.countByUserId(userId) : null;
+        return Cursor.toResponse(items, count, item -> Cursor.of(item.getId()));
     }
 
     @GetMapping("/search")
-    public List<ItemDto> search(@RequestParam(name = "text") String term,
-                                @RequestParam(defaultValue = "0", required = false) int from,
-                                @RequestParam(defaultValue = "25", required = false) int size) {
+    public ResponseEntity<List<ItemDto>> search(@RequestParam(name = "text") String term,
+                                                @RequestParam(defaultValue = "0", required = false) int from,
+                                                @RequestParam(defaultValue = "25", required = false) int size,
+                                                @RequestParam(required = false) String cursor,
+                                                @RequestParam(defaultValue = "false", required = false) boolean total) {
         log.info("User trying to search items by term \"{}\"", term);
-        return itemService.search(term, from, size);
+        Cursor position = cursor == null ? Cursor.of(from) : Cursor.decode(cursor);
+        CountedSlice<ItemDto> items = itemService.search(term, position, size);
+        Long count = total ? items.getTotal() : null;
+        return Cursor.toResponse(items, count, item -> Cursor.of(position.getId() + items.getNumberOfElements()));
     }
 
     @PostMapping("/{itemId}/comment")
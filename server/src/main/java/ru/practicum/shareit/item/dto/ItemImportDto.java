@@ -0,0 +1,50 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a bulk item import. Every row is counted, but only the first {@code MAX_ERRORS} failed rows are
+ * listed, so the summary stays the same size however large the upload is.
+ */
+@Data
+@NoArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ItemImportDto {
+    public static final int MAX_ERRORS = 100;
+
+    int total;
+    int created;
+    int failed;
+    boolean errorsTruncated;
+    List<RowError> errors = new ArrayList<>();
+
+    public void addCreated() {
+        total++;
+        created++;
+    }
+
+    public void addFailed(int row, String message) {
+        total++;
+        failed++;
+        if (errors.size() < MAX_ERRORS) {
+            errors.add(new RowError(row, message));
+        } else {
+            errorsTruncated = true;
+        }
+    }
+
+    @Data
+    @AllArgsConstructor
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    public static class RowError {
+        int row;
+        String message;
+    }
+}
@@ -0,0 +1,79 @@
+package ru.practicum.shareit.item.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemImportDto;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemStorage;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.storage.ItemRequestStorage;
+import ru.practicum.shareit.user.User;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Saves the chunks of a bulk item import. Kept apart from {@link ItemServiceImpl} so each chunk runs through the
+ * transactional proxy.
+ */
+@Component
+@RequiredArgsConstructor
+public class ItemImportChunks {
+    private final ItemStorage itemStorage;
+    private final ItemRequestStorage requestStorage;
+
+    /**
+     * Looks up the item requests of the chunk and saves its valid rows in one transaction. The rows are counted in
+     * {@code result} only once the items are saved, so a chunk that fails leaves the summary as it was.
+     */
+    @Transactional
+    public void save(User user, List<Row> chunk, ItemImportDto result) {
+        Set<Long> requestIds = chunk.stream()
+                .filter(row -> row.error == null)
+                .map(row -> row.item.getRequestId())
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, ItemRequest> requests = requestIds.isEmpty()
+                ? Collections.emptyMap()
+                : requestStorage.findAllById(requestIds).stream()
+                        .collect(Collectors.toMap(ItemRequest::getId, Function.identity()));
+
+        List<Item> items = new ArrayList<>(chunk.size());
+        List<Row> failed = new ArrayList<>();
+        for (Row row : chunk) {
+            if (row.error != null) {
+                failed.add(row);
+                continue;
+            }
+            Long requestId = row.item.getRequestId();
+            if (requestId != null && !requests.containsKey(requestId)) {
+                failed.add(new Row(row.row, row.item, String.format("No such item request with id = %d", requestId)));
+                continue;
+            }
+            Item item = ItemMapper.toItem(user, row.item, requestId == null ? null : requests.get(requestId));
+            // A null id lets saveAll persist the row instead of looking it up to merge it
+            item.setId(null);
+            items.add(item);
+        }
+        itemStorage.saveAll(items);
+
+        failed.forEach(row -> result.addFailed(row.row, row.error));
+        items.forEach(item -> result.addCreated());
+    }
+
+    @RequiredArgsConstructor
+    static class Row {
+        final int row;
+        final ItemDto item;
+        final String error;
+    }
+}
@@ -1,11 +1,15 @@
 package ru.practicum.shareit.item.service;
 
+import org.springframework.data.domain.Slice;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemBookingDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemImportDto;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.CountedSlice;
+import ru.practicum.shareit.pagination.Cursor;
 
-import java.util.List;
+import java.io.InputStream;
 
 public interface ItemService {
     Item findById(long itemId);
@@ -14,11 +18,19 @@ public interface ItemService {
 
     ItemDto add(long userId, ItemDto itemDto);
 
+    ItemImportDto importItems(long userId, InputStream rows);
+
     ItemDto update(long userId, ItemDto itemDto);
 
-    List<ItemBookingDto> findByUserId(long userId, int from, int size);
+    Slice<ItemBookingDto> findByUserId(long userId, int from, int size);
+
+    Slice<ItemBookingDto> findByUserId(long userId, Cursor cursor, int size);
+
+    long countByUserId(long userId);
+
+    CountedSlice<ItemDto> search(String term, int from, int size);
 
-    List<ItemDto> search(String term, int from, int size);
+    CountedSlice<ItemDto> search(String term, Cursor cursor, int size);
 
     CommentDto addComment(long userId, long itemId, CommentDto commentDto);
 }
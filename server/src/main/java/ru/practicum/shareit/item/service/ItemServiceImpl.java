@@ -1,45 +1,71 @@
 package ru.practicum.shareit.item.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
 import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.ItemBookingWindow;
 import ru.practicum.shareit.booking.Status;
+import ru.practicum.shareit.booking.service.ItemBookingWindows;
 import ru.practicum.shareit.booking.storage.BookingStorage;
 import ru.practicum.shareit.exception.NoSuchEntityException;
 import ru.practicum.shareit.exception.NotAvailableException;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemBookingDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemImportDto;
 import ru.practicum.shareit.item.mapper.CommentMapper;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.storage.CommentStorage;
 import ru.practicum.shareit.item.storage.ItemStorage;
+import ru.practicum.shareit.pagination.CountedSlice;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.pagination.OffsetPageRequest;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.storage.ItemRequestStorage;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.service.UserService;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class ItemServiceImpl implements ItemService {
+    private static final int IMPORT_CHUNK_SIZE = 500;
+    private static final int MAX_NAME_LENGTH = 255;
+    private static final int MAX_DESCRIPTION_LENGTH = 512;
+
     private final ItemStorage itemStorage;
     private final UserService userService;
     private final BookingStorage bookingStorage;
+    private final ItemBookingWindows bookingWindows;
     private final CommentStorage commentStorage;
     private final ItemRequestStorage requestStorage;
+    private final ItemImportChunks importChunks;
+    private final ObjectMapper objectMapper;
 
     @Override
     public Item findById(long itemId) {
@@ -56,17 +82,10 @@ public class ItemServiceImpl implements ItemService {
         Booking lastBooking = null;
         Booking nextBooking = null;
 
-        if (item.getUser().equals(user)) {
-            List<Booking> bookings = bookingStorage.findByItemAndItemUserAndStatusOrderByStartAsc(
-                    item, user, Status.APPROVED);
-            lastBooking = bookings.stream()
-                    .filter(booking -> booking.getStart().isBefore(LocalDateTime.now()))
-                    .max(Comparator.comparing(Booking::getStart))
-                    .orElse(null);
-            nextBooking = bookings.stream()
-                    .filter(booking -> booking.getStart().isAfter(LocalDateTime.now()))
-                    .min(Comparator.comparing(Booking::getEnd))
-                    .orElse(null);
+        if (item.getUser().getId().equals(user.getId())) {
+            Optional<ItemBookingWindow> window = bookingWindows.find(itemId);
+            lastBooking = window.map(ItemBookingWindow::getLastBooking).orElse(null);
+            nextBooking = window.map(ItemBookingWindow::getNextBooking).orElse(null);
         }
 
         List<Comment> comments = commentStorage.findByItemOrderById(item);
@@ -92,6 +111,43 @@ public class ItemServiceImpl implements ItemService {
         return ItemMapper.toItemDto(itemStorage.save(ItemMapper.toItem(userService.findById(userId), itemDto, request)));
     }
 
+    /**
+     * Reads the rows one at a time and saves them in chunks of {@value #IMPORT_CHUNK_SIZE}. Each chunk is one
+     * transaction with batched inserts and a single lookup of its item requests. An invalid row fails on its own, and
+     * a chunk that cannot be saved fails all of its rows while the import goes on with the next one. A malformed JSON
+     * document stops the import, and the chunks saved before it are kept.
+     */
+    @Override
+    public ItemImportDto importItems(long userId, InputStream rows) {
+        User user = userService.findById(userId);
+        ItemImportDto result = new ItemImportDto();
+        List<ItemImportChunks.Row> chunk = new ArrayList<>(IMPORT_CHUNK_SIZE);
+        int row = 1;
+
+        try (MappingIterator<ItemDto> iterator = objectMapper.readerFor(ItemDto.class).readValues(rows)) {
+            while (iterator.hasNextValue()) {
+                try {
+                    ItemDto itemDto = iterator.nextValue();
+                    chunk.add(new ItemImportChunks.Row(row, itemDto, validateImported(itemDto)));
+                } catch (JsonMappingException e) {
+                    chunk.add(new ItemImportChunks.Row(row, null, "Malformed item: " + e.getOriginalMessage()));
+                }
+                row++;
+                if (chunk.size() == IMPORT_CHUNK_SIZE) {
+                    saveImported(user, chunk, result);
+                    chunk.clear();
+                }
+            }
+            saveImported(user, chunk, result);
+        } catch (JsonProcessingException e) {
+            saveImported(user, chunk, result);
+            result.addFailed(row, "Malformed JSON, import stopped: " + e.getOriginalMessage());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return result;
+    }
+
     @Override
     public ItemDto update(long userId, ItemDto itemDto) {
         User user = userService.findById(userId);
@@ -122,40 +178,43 @@ public class ItemServiceImpl implements ItemService {
     }
 
     @Override
-    public List<ItemBookingDto> findByUserId(long userId, int from, int size) {
+    public Slice<ItemBookingDto> findByUserId(long userId, int from, int size) {
         User user = UserMapper.toUser(userService.get(userId));
-        List<ItemBookingDto> itemDtos = new ArrayList<>();
-        Pageable page = PageRequest.of(from / size, size);
-        Page<Item> items = itemStorage.findByUserOrderById(user, page);
-
-        for (Item item : items) {
-            List<Booking> bookings = bookingStorage.findByItemAndItemUserAndStatusOrderByStartAsc(
-                    item, user, Status.APPROVED);
-            Booking lastBooking = bookings.stream()
-                    .filter(booking -> booking.getStart().isBefore(LocalDateTime.now()))
-                    .max(Comparator.comparing(Booking::getStart))
-                    .orElse(null);
-            Booking nextBooking = bookings.stream()
-                    .filter(booking -> booking.getStart().isAfter(LocalDateTime.now()))
-                    .min(Comparator.comparing(Booking::getEnd))
-                    .orElse(null);
-            itemDtos.add(ItemMapper.toItemBookingDto(item, lastBooking, nextBooking, commentStorage.findByItemOrderById(item)));
-        }
-
-        return itemDtos;
+        Pageable page = OffsetPageRequest.ofOffset(from, size);
+
+        return toItemBookingDtos(itemStorage.findByUserOrderById(user, page));
     }
 
     @Override
-    public List<ItemDto> search(String term, int from, int size) {
-        Pageable page = PageRequest.of(from / size, size);
+    public Slice<ItemBookingDto> findByUserId(long userId, Cursor cursor, int size) {
+        User user = UserMapper.toUser(userService.get(userId));
+        Pageable page = PageRequest.of(0, size);
+
+        return toItemBookingDtos(itemStorage.findByUserAndIdGreaterThanOrderById(user, cursor.getId(), page));
+    }
+
+    @Override
+    public long countByUserId(long userId) {
+        User user = UserMapper.toUser(userService.get(userId));
+
+        return itemStorage.countByUser(user);
+    }
+
+    @Override
+    public CountedSlice<ItemDto> search(String term, int from, int size) {
+        Pageable page = OffsetPageRequest.ofOffset(from, size);
 
         if (term == null || term.isBlank()) {
-            return Collections.emptyList();
+            return new CountedSlice<>(Collections.emptyList(), page, false, 0);
         }
 
-        return itemStorage.search(term, page).getContent().stream()
-                .map(ItemMapper::toItemDto)
-                .collect(Collectors.toList());
+        return itemStorage.search(term, page).map(ItemMapper::toItemDto);
+    }
+
+    @Override
+    public CountedSlice<ItemDto> search(String term, Cursor cursor, int size) {
+        // Search hits are ranked in memory, so the cursor carries the position in the ranking
+        return search(term, (int) cursor.getId(), size);
     }
 
     @Override
@@ -180,4 +239,67 @@ public class ItemServiceImpl implements ItemService {
         comment.setCreated(LocalDateTime.now());
         return CommentMapper.toCommentDto(commentStorage.save(comment));
     }
+
+    private static String validateImported(ItemDto itemDto) {
+        if (itemDto.getName() == null || itemDto.getName().isBlank()) {
+            return "Item with empty name";
+        }
+        if (itemDto.getDescription() == null || itemDto.getDescription().isBlank()) {
+            return "Item with empty description";
+        }
+        if (itemDto.getAvailable() == null) {
+            return "Item with empty status";
+        }
+        if (itemDto.getName().length() > MAX_NAME_LENGTH) {
+            return String.format("Item name is longer than %d characters", MAX_NAME_LENGTH);
+        }
+        if (itemDto.getDescription().length() > MAX_DESCRIPTION_LENGTH) {
+            return String.format("Item description is longer than %d characters", MAX_DESCRIPTION_LENGTH);
+        }
+        return null;
+    }
+
+    private void saveImported(User user, List<ItemImportChunks.Row> chunk, ItemImportDto result) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        try {
+            importChunks.save(user, chunk, result);
+        } catch (DataAccessException | TransactionException e) {
+            String message = String.format("Rows %d-%d could not be saved", chunk.get(0).row,
+                    chunk.get(chunk.size() - 1).row);
+            log.warn(message, e);
+            chunk.forEach(row -> result.addFailed(row.row, row.error != null ? row.error : message));
+        }
+    }
+
+    private Slice<ItemBookingDto> toItemBookingDtos(Slice<Item> items) {
+        return new SliceImpl<>(toItemBookingDtos(items.getContent()), items.getPageable(), items.hasNext());
+    }
+
+    private List<ItemBookingDto> toItemBookingDtos(List<Item> items) {
+        if (items.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<Long> itemIds = items.stream()
+                .map(Item::getId)
+                .collect(Collectors.toList());
+        Map<Long, ItemBookingWindow> windows = bookingWindows.find(itemIds);
+
+        Map<Long, List<Comment>> comments = commentStorage.findByItemIds(itemIds).stream()
+                .collect(Collectors.groupingBy(comment -> comment.getItem().getId()));
+
+        return items.stream()
+                .map(item -> {
+                    ItemBookingWindow window = windows.getOrDefault(item.getId(), new ItemBookingWindow(item.getId()));
+                    return ItemMapper.toItemBookingDto(
+                            item,
+                            window.getLastBooking(),
+                            window.getNextBooking(),
+                            comments.getOrDefault(item.getId(), Collections.emptyList()));
+                })
+                .collect(Collectors.toList());
+    }
 }
@@ -1,14 +1,25 @@
 package ru.practicum.shareit.item.storage;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.User;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface CommentStorage extends JpaRepository<Comment, Long> {
+    @EntityGraph(attributePaths = "author")
     List<Comment> findByItemOrderById(Item item);
 
+    @Query("select c " +
+            "from Comment as c " +
+            "join fetch c.author " +
+            "where c.item.id in :itemIds " +
+            "order by c.id")
+    List<Comment> findByItemIds(Collection<Long> itemIds);
+
     boolean existsByItemAndAuthor(Item item, User user);
 }
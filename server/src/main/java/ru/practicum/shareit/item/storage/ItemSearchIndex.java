@@ -0,0 +1,252 @@
+package ru.practicum.shareit.item.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory inverted index over name and description of available items.
+ * Query terms match index terms by prefix, all query terms must match,
+ * and results are ranked with BM25.
+ * <p>
+ * A {@link Rebuild} fills a new index off to the side while this one keeps serving searches, and is swapped in at
+ * once when done. Changes made to the index in the meantime are replayed on the new one before the swap.
+ * <p>
+ * Every server instance holds its own index. {@link ItemSearchIndexSync} applies the item changes made on the other
+ * instances to it.
+ */
+@Component
+public class ItemSearchIndex {
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int NAME_WEIGHT = 2;
+    private static final Pattern DELIMITER = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Segment segment = new Segment();
+    private Rebuild rebuild;
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return segment.documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void index(Item item) {
+        lock.writeLock().lock();
+        try {
+            segment.index(item);
+            if (rebuild != null) {
+                rebuild.changes.put(item.getId(), item);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void delete(long itemId) {
+        lock.writeLock().lock();
+        try {
+            segment.remove(itemId);
+            if (rebuild != null) {
+                rebuild.changes.put(itemId, null);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Starts building a new index. A rebuild already under way is abandoned.
+     */
+    public Rebuild startRebuild() {
+        lock.writeLock().lock();
+        try {
+            rebuild = new Rebuild();
+            return rebuild;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Long> search(String text) {
+        Set<String> queryTerms = new LinkedHashSet<>(tokenize(text));
+        if (queryTerms.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<Long, Double> scores = null;
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Document> documents = segment.documents;
+            if (documents.isEmpty()) {
+                return Collections.emptyList();
+            }
+
+            double averageLength = (double) segment.totalLength / documents.size();
+
+            for (String queryTerm : queryTerms) {
+                Map<Long, Double> termScores = new HashMap<>();
+
+                for (Map<Long, Integer> posting : segment.postings
+                        .subMap(queryTerm, true, queryTerm + Character.MAX_VALUE, true).values()) {
+                    double idf = Math.log(1 + (documents.size() - posting.size() + 0.5) / (posting.size() + 0.5));
+
+                    for (Map.Entry<Long, Integer> entry : posting.entrySet()) {
+                        int frequency = entry.getValue();
+                        int length = documents.get(entry.getKey()).length;
+                        double score = idf * frequency * (K1 + 1)
+                                / (frequency + K1 * (1 - B + B * length / averageLength));
+                        termScores.merge(entry.getKey(), score, Double::sum);
+                    }
+                }
+
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    scores.keySet().retainAll(termScores.keySet());
+                    scores.replaceAll((itemId, score) -> score + termScores.get(itemId));
+                }
+
+                if (scores.isEmpty()) {
+                    return Collections.emptyList();
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    private static List<String> tokenize(String text) {
+        if (text == null) {
+            return Collections.emptyList();
+        }
+
+        return Arrays.stream(DELIMITER.split(text.toLowerCase(Locale.ROOT)))
+                .filter(term -> !term.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * A new index being filled by a single thread. Items passed to {@link #index} must be read after
+     * {@link #startRebuild}, so that every change the new index could miss is among the replayed ones.
+     */
+    public class Rebuild {
+        private final Segment building = new Segment();
+        // Latest change of each item made to the live index during the rebuild, null for a delete
+        private final Map<Long, Item> changes = new LinkedHashMap<>();
+
+        private Rebuild() {
+        }
+
+        public void index(Item item) {
+            building.index(item);
+        }
+
+        /**
+         * Replays the changes made meanwhile and swaps the new index in.
+         *
+         * @return false if another rebuild has started since, in which case this one is dropped
+         */
+        public boolean finish() {
+            lock.writeLock().lock();
+            try {
+                if (rebuild != this) {
+                    return false;
+                }
+                changes.forEach((itemId, item) -> {
+                    if (item == null) {
+                        building.remove(itemId);
+                    } else {
+                        building.index(item);
+                    }
+                });
+                segment = building;
+                rebuild = null;
+                return true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        /**
+         * Drops this rebuild, leaving the live index as it is.
+         */
+        public void abort() {
+            lock.writeLock().lock();
+            try {
+                if (rebuild == this) {
+                    rebuild = null;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private static class Segment {
+        private final Map<Long, Document> documents = new HashMap<>();
+        private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+        private long totalLength;
+
+        private void index(Item item) {
+            remove(item.getId());
+            if (Boolean.TRUE.equals(item.getAvailable())) {
+                put(item.getId(), item.getName(), item.getDescription());
+            }
+        }
+
+        private void put(long itemId, String name, String description) {
+            Map<String, Integer> frequencies = new HashMap<>();
+            tokenize(name).forEach(term -> frequencies.merge(term, NAME_WEIGHT, Integer::sum));
+            tokenize(description).forEach(term -> frequencies.merge(term, 1, Integer::sum));
+
+            int length = 0;
+            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), term -> new HashMap<>()).put(itemId, entry.getValue());
+                length += entry.getValue();
+            }
+
+            documents.put(itemId, new Document(frequencies.keySet(), length));
+            totalLength += length;
+        }
+
+        private void remove(long itemId) {
+            Document document = documents.remove(itemId);
+            if (document == null) {
+                return;
+            }
+
+            for (String term : document.terms) {
+                Map<Long, Integer> posting = postings.get(term);
+                posting.remove(itemId);
+                if (posting.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+            totalLength -= document.length;
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class Document {
+        private final Set<String> terms;
+        private final int length;
+    }
+}
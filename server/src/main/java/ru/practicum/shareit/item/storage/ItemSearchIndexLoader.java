@@ -0,0 +1,60 @@
+package ru.practicum.shareit.item.storage;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.model.Item;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+/**
+ * Builds the search index from the database once the application is up. The new index is swapped in only once it is
+ * complete, so searches never see a partly loaded one.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ItemSearchIndexLoader {
+    private static final int BATCH_SIZE = 1000;
+
+    private final EntityManager em;
+    private final ItemSearchIndex searchIndex;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        ItemSearchIndex.Rebuild rebuild = searchIndex.startRebuild();
+        try {
+            load(rebuild);
+        } catch (RuntimeException e) {
+            rebuild.abort();
+            throw e;
+        }
+
+        if (rebuild.finish()) {
+            log.info("Item search index rebuilt with {} items", searchIndex.size());
+        }
+    }
+
+    private void load(ItemSearchIndex.Rebuild rebuild) {
+        long lastId = 0;
+        List<Item> items;
+        do {
+            items = em.createQuery("select it " +
+                            "from Item as it " +
+                            "where it.available = true " +
+                            "and it.id > :lastId " +
+                            "order by it.id", Item.class)
+                    .setParameter("lastId", lastId)
+                    .setMaxResults(BATCH_SIZE)
+                    .getResultList();
+
+            for (Item item : items) {
+                rebuild.index(item);
+                lastId = item.getId();
+            }
+        } while (items.size() == BATCH_SIZE);
+    }
+}
@@ -0,0 +1,59 @@
+package ru.practicum.shareit.item.storage;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.cache.CacheInvalidationBus;
+import ru.practicum.shareit.cache.EntityInvalidation;
+import ru.practicum.shareit.item.model.Item;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.CacheRetrieveMode;
+import javax.persistence.CacheStoreMode;
+import javax.persistence.EntityManager;
+import java.util.List;
+
+/**
+ * Applies items added, changed and removed on other server instances to the search index of this one. Every item
+ * published on the {@link CacheInvalidationBus} is read again from the database and indexed as it is now, or dropped
+ * if it is gone, so it does not matter in which order the invalidations arrive. Does nothing when there is no bus.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ItemSearchIndexSync {
+    private static final String ITEM = Item.class.getName();
+    private static final String RETRIEVE_MODE = "javax.persistence.cache.retrieveMode";
+    private static final String STORE_MODE = "javax.persistence.cache.storeMode";
+
+    private final EntityManager em;
+    private final ItemSearchIndex searchIndex;
+    private final ObjectProvider<CacheInvalidationBus> busProvider;
+
+    @PostConstruct
+    void subscribe() {
+        busProvider.ifAvailable(bus -> bus.subscribe(this::reindex));
+    }
+
+    private void reindex(EntityInvalidation invalidation) {
+        if (!ITEM.equals(invalidation.getEntityName())) {
+            return;
+        }
+
+        log.debug("Reindexing item with id = {}", invalidation.getId());
+        // Reads the row itself and leaves the second-level cache alone, which the invalidation may be evicting
+        List<Item> items = em.createQuery("select it " +
+                        "from Item as it " +
+                        "where it.id = :id", Item.class)
+                .setParameter("id", invalidation.getId())
+                .setHint(RETRIEVE_MODE, CacheRetrieveMode.BYPASS)
+                .setHint(STORE_MODE, CacheStoreMode.BYPASS)
+                .getResultList();
+        if (items.isEmpty()) {
+            searchIndex.delete(invalidation.getId());
+        } else {
+            searchIndex.index(items.get(0));
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package ru.practicum.shareit.item.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.cache.CacheInvalidationBus;
+import ru.practicum.shareit.cache.EntityInvalidation;
+import ru.practicum.shareit.item.model.Item;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * Keeps the search index in step with saved and removed items. Changes reach the index only once their transaction
+ * commits, so a rolled back one leaves nothing behind. New items are also published to the {@link CacheInvalidationBus}
+ * for {@link ItemSearchIndexSync} on the other server instances; updates and deletes of items already go out there as
+ * second-level cache invalidations.
+ */
+@RequiredArgsConstructor
+public class ItemSearchListener {
+    private final ItemSearchIndex searchIndex;
+    private final ObjectProvider<CacheInvalidationBus> busProvider;
+
+    @PostPersist
+    public void onPersist(Item item) {
+        onSave(item);
+        EntityInvalidation added = new EntityInvalidation(Item.class.getName(), item.getId());
+        afterCommit(() -> busProvider.ifAvailable(bus -> bus.publish(added)));
+    }
+
+    @PostUpdate
+    public void onSave(Item item) {
+        // The entity may change again before the commit, so the index gets the state as of this flush
+        Item indexed = new Item(item.getId(), item.getName(), item.getDescription(), item.getAvailable(), null);
+        afterCommit(() -> searchIndex.index(indexed));
+    }
+
+    @PostRemove
+    public void onRemove(Item item) {
+        long itemId = item.getId();
+        afterCommit(() -> searchIndex.delete(itemId));
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,12 @@
+package ru.practicum.shareit.item.storage;
+
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.CountedSlice;
+
+public interface ItemSearchStorage {
+    /**
+     * Ranked hits on the page, with the number of hits in all pages.
+     */
+    CountedSlice<Item> search(String text, Pageable page);
+}
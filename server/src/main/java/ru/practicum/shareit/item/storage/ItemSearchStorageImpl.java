@@ -0,0 +1,53 @@
+package ru.practicum.shareit.item.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.CountedSlice;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@RequiredArgsConstructor
+public class ItemSearchStorageImpl implements ItemSearchStorage {
+    private final EntityManager em;
+    private final ItemSearchIndex searchIndex;
+
+    @Override
+    public CountedSlice<Item> search(String text, Pageable page) {
+        List<Long> rankedIds = searchIndex.search(text);
+        int fromIndex = (int) Math.min(page.getOffset(), rankedIds.size());
+        int toIndex = Math.min(fromIndex + page.getPageSize(), rankedIds.size());
+        List<Long> pageIds = rankedIds.subList(fromIndex, toIndex);
+        boolean hasNext = toIndex < rankedIds.size();
+
+        if (pageIds.isEmpty()) {
+            return new CountedSlice<>(Collections.emptyList(), page, hasNext, rankedIds.size());
+        }
+
+        Map<Long, Item> items = em.createQuery("select it " +
+                        "from Item as it " +
+                        "where it.id in :ids", Item.class)
+                .setParameter("ids", pageIds)
+                .getResultList()
+                .stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+
+        List<Item> content = new ArrayList<>(pageIds.size());
+        for (Long itemId : pageIds) {
+            Item item = items.get(itemId);
+            if (item == null) {
+                searchIndex.delete(itemId);
+            } else {
+                content.add(item);
+            }
+        }
+
+        return new CountedSlice<>(content, page, hasNext, rankedIds.size());
+    }
+}
@@ -1,24 +1,34 @@
 package ru.practicum.shareit.item.storage;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.User;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
-public interface ItemStorage extends JpaRepository<Item, Long> {
-    Page<Item> findByUserOrderById(User user, Pageable page);
+public interface ItemStorage extends JpaRepository<Item, Long>, ItemSearchStorage {
+    @Override
+    @EntityGraph(attributePaths = "user")
+    Optional<Item> findById(Long id);
 
-    @Query("select it " +
-            "from Item as it " +
-            "where (lower(it.name) like lower(concat('%', :text, '%')) " +
-            "or lower(it.description) like lower(concat('%', :text, '%'))) " +
-            "and it.available = true ")
-    Page<Item> search(String text, Pageable page);
+    Slice<Item> findByUserOrderById(User user, Pageable page);
+
+    Slice<Item> findByUserAndIdGreaterThanOrderById(User user, long id, Pageable page);
+
+    long countByUser(User user);
 
     List<Item> findByRequest(ItemRequest request);
+
+    @Query("select it " +
+            "from Item as it " +
+            "where it.request.id in :requestIds " +
+            "order by it.id")
+    List<Item> findByRequestIds(Collection<Long> requestIds);
 }
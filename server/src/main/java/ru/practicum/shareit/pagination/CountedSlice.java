@@ -0,0 +1,29 @@
+package ru.practicum.shareit.pagination;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Slice of a listing whose size is known once the slice is cut, so the total comes with it instead of from a
+ * separate count.
+ */
+public class CountedSlice<T> extends SliceImpl<T> {
+    private final long total;
+
+    public CountedSlice(List<T> content, Pageable pageable, boolean hasNext, long total) {
+        super(content, pageable, hasNext);
+        this.total = total;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    @Override
+    public <U> CountedSlice<U> map(Function<? super T, ? extends U> converter) {
+        return new CountedSlice<>(getConvertedContent(converter), getPageable(), hasNext(), total);
+    }
+}
@@ -0,0 +1,85 @@
+package ru.practicum.shareit.pagination;
+
+import lombok.Value;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import ru.practicum.shareit.exception.NotAvailableException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Opaque keyset position: sort key of the last returned row and its id.
+ * Listings without a timestamp sort key leave {@code timestamp} empty.
+ */
+@Value
+public class Cursor {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+
+    private static final String SEPARATOR = ";";
+
+    LocalDateTime timestamp;
+    long id;
+
+    public static Cursor of(long id) {
+        return new Cursor(null, id);
+    }
+
+    public static Cursor of(LocalDateTime timestamp, long id) {
+        return new Cursor(timestamp, id);
+    }
+
+    public static Cursor decode(String value) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+            String[] parts = decoded.split(SEPARATOR, -1);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException();
+            }
+            LocalDateTime timestamp = parts[0].isEmpty() ? null : LocalDateTime.parse(parts[0]);
+            return new Cursor(timestamp, Long.parseLong(parts[1]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new NotAvailableException(String.format("Invalid cursor: %s", value));
+        }
+    }
+
+    /**
+     * Decodes a cursor of a listing sorted by timestamp. An id-only cursor from another listing is rejected, it would
+     * otherwise match no rows at all.
+     */
+    public static Cursor decodeTimestamped(String value) {
+        Cursor cursor = decode(value);
+        if (cursor.timestamp == null) {
+            throw new NotAvailableException(String.format("Invalid cursor: %s", value));
+        }
+        return cursor;
+    }
+
+    /**
+     * Wraps a slice into a response carrying the cursor of its last element, unless it is the last slice,
+     * and the total number of matching rows if the client asked for it.
+     */
+    public static <T> ResponseEntity<List<T>> toResponse(Slice<T> slice, @Nullable Long total,
+                                                         Function<T, Cursor> toCursor) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        List<T> content = slice.getContent();
+        if (slice.hasNext() && !content.isEmpty()) {
+            response.header(NEXT_CURSOR_HEADER, toCursor.apply(content.get(content.size() - 1)).encode());
+        }
+        if (total != null) {
+            response.header(TOTAL_COUNT_HEADER, String.valueOf(total));
+        }
+        return response.body(content);
+    }
+
+    public String encode() {
+        String value = (timestamp == null ? "" : timestamp.toString()) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,43 @@
+package ru.practicum.shareit.pagination;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Page request starting at an arbitrary row offset, so that {@code from}
+ * values which are not a multiple of {@code size} return the exact window.
+ */
+public class OffsetPageRequest extends PageRequest {
+    private final long offset;
+
+    protected OffsetPageRequest(long offset, int size, Sort sort) {
+        super((int) (offset / size), size, sort);
+        this.offset = offset;
+    }
+
+    public static OffsetPageRequest ofOffset(long offset, int size) {
+        return ofOffset(offset, size, Sort.unsorted());
+    }
+
+    public static OffsetPageRequest ofOffset(long offset, int size, Sort sort) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("Offset must not be less than zero");
+        }
+        return new OffsetPageRequest(offset, size, sort);
+    }
+
+    @Override
+    public long getOffset() {
+        return offset;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return super.equals(obj) && offset == ((OffsetPageRequest) obj).offset;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * super.hashCode() + Long.hashCode(offset);
+    }
+}
@@ -2,7 +2,10 @@ package ru.practicum.shareit.request.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.pagination.Cursor;
 import ru.practicum.shareit.request.dto.AnsweredItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.NewItemRequestDto;
@@ -35,11 +38,18 @@ public class ItemRequestController {
     }
 
     @GetMapping("/all")
-    public List<AnsweredItemRequestDto> findAllButNotUserId(@RequestHeader("X-Sharer-User-Id") long userId,
-                                                            @RequestParam(defaultValue = "0", required = false) int from,
-                                                            @RequestParam(defaultValue = "25", required = false) int size) {
+    public ResponseEntity<List<AnsweredItemRequestDto>> findAllButNotUserId(
+            @RequestHeader("X-Sharer-User-Id") long userId,
+            @RequestParam(defaultValue = "0", required = false) int from,
+            @RequestParam(defaultValue = "25", required = false) int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false", required = false) boolean total) {
         log.info("User with id = {} trying to fetch list of item requests", userId);
-        return itemRequestService.findAllButNotUserId(userId, from, size);
+        Slice<AnsweredItemRequestDto> requests = cursor == null
+                ? itemRequestService.findAllButNotUserId(userId, from, size)
+                : itemRequestService.findAllButNotUserId(userId, Cursor.decodeTimestamped(cursor), size);
+        Long count = total ? itemRequestService.countAllButNotUserId(userId) : null;
+        return Cursor.toResponse(requests, count, request -> Cursor.of(request.getCreated(), request.getId()));
     }
 
     @GetMapping("/{requestId}")
@@ -1,5 +1,7 @@
 package ru.practicum.shareit.request.service;
 
+import org.springframework.data.domain.Slice;
+import ru.practicum.shareit.pagination.Cursor;
 import ru.practicum.shareit.request.dto.AnsweredItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.NewItemRequestDto;
@@ -12,7 +14,11 @@ public interface ItemRequestService {
 
     List<AnsweredItemRequestDto> findByUserId(long userId);
 
-    List<AnsweredItemRequestDto> findAllButNotUserId(long userId, int from, int size);
+    Slice<AnsweredItemRequestDto> findAllButNotUserId(long userId, int from, int size);
+
+    Slice<AnsweredItemRequestDto> findAllButNotUserId(long userId, Cursor cursor, int size);
+
+    long countAllButNotUserId(long userId);
 
     AnsweredItemRequestDto get(long userId, long itemRequestId);
 }
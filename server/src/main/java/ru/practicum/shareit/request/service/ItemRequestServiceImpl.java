@@ -1,12 +1,16 @@
 package ru.practicum.shareit.request.service;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import ru.practicum.shareit.exception.NoSuchEntityException;
+import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.storage.ItemStorage;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.pagination.OffsetPageRequest;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.mapper.ItemRequestMapper;
 import ru.practicum.shareit.request.storage.ItemRequestStorage;
@@ -16,7 +20,9 @@ import ru.practicum.shareit.request.dto.NewItemRequestDto;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.service.UserService;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -38,23 +44,38 @@ public class ItemRequestServiceImpl implements ItemRequestService {
     public List<AnsweredItemRequestDto> findByUserId(long userId) {
         User user = userService.findById(userId);
 
-        List<ItemRequest> requests = itemRequestStorage.findByRequestorOrderByCreatedDesc(user);
+        return toAnsweredItemRequestDtos(itemRequestStorage.findByRequestorOrderByCreatedDesc(user));
+    }
 
-        return requests.stream()
-                .map(request -> ItemRequestMapper.toAnsweredItemRequestDto(request, itemStorage.findByRequest(request)))
-                .collect(Collectors.toList());
+    @Override
+    public Slice<AnsweredItemRequestDto> findAllButNotUserId(long userId, int from, int size) {
+        User user = userService.findById(userId);
+
+        Sort sort = Sort.by(Sort.Direction.DESC, "created", "id");
+        Slice<ItemRequest> page = itemRequestStorage.findByRequestorNot(user, OffsetPageRequest.ofOffset(from, size, sort));
+
+        return toAnsweredItemRequestDtos(page);
     }
 
     @Override
-    public List<AnsweredItemRequestDto> findAllButNotUserId(long userId, int from, int size) {
+    public Slice<AnsweredItemRequestDto> findAllButNotUserId(long userId, Cursor cursor, int size) {
         User user = userService.findById(userId);
 
-        Sort sort = Sort.by(Sort.Direction.DESC, "created");
-        Page<ItemRequest> page = itemRequestStorage.findByRequestorNot(user, PageRequest.of(from / size, size, sort));
+        Slice<ItemRequest> requests = itemRequestStorage.seekByRequestorNot(
+                user,
+                cursor.getTimestamp(),
+                cursor.getId(),
+                PageRequest.of(0, size)
+        );
 
-        return page.getContent().stream()
-                .map(request -> ItemRequestMapper.toAnsweredItemRequestDto(request, itemStorage.findByRequest(request)))
-                .collect(Collectors.toList());
+        return toAnsweredItemRequestDtos(requests);
+    }
+
+    @Override
+    public long countAllButNotUserId(long userId) {
+        User user = userService.findById(userId);
+
+        return itemRequestStorage.countByRequestorNot(user);
     }
 
     @Override
@@ -67,4 +88,28 @@ public class ItemRequestServiceImpl implements ItemRequestService {
 
         return ItemRequestMapper.toAnsweredItemRequestDto(request, itemStorage.findByRequest(request));
     }
+
+    private Slice<AnsweredItemRequestDto> toAnsweredItemRequestDtos(Slice<ItemRequest> requests) {
+        return new SliceImpl<>(toAnsweredItemRequestDtos(requests.getContent()), requests.getPageable(),
+                requests.hasNext());
+    }
+
+    private List<AnsweredItemRequestDto> toAnsweredItemRequestDtos(List<ItemRequest> requests) {
+        if (requests.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<Long> requestIds = requests.stream()
+                .map(ItemRequest::getId)
+                .collect(Collectors.toList());
+
+        Map<Long, List<Item>> items = itemStorage.findByRequestIds(requestIds).stream()
+                .collect(Collectors.groupingBy(item -> item.getRequest().getId()));
+
+        return requests.stream()
+                .map(request -> ItemRequestMapper.toAnsweredItemRequestDto(
+                        request,
+                        items.getOrDefault(request.getId(), Collections.emptyList())))
+                .collect(Collectors.toList());
+    }
 }
@@ -1,15 +1,31 @@
 package ru.practicum.shareit.request.storage;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.User;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface ItemRequestStorage extends JpaRepository<ItemRequest, Long> {
+    @EntityGraph(attributePaths = "requestor")
     List<ItemRequest> findByRequestorOrderByCreatedDesc(User user);
 
-    Page<ItemRequest> findByRequestorNot(User user, PageRequest pageRequest);
+    @EntityGraph(attributePaths = "requestor")
+    Slice<ItemRequest> findByRequestorNot(User user, PageRequest pageRequest);
+
+    long countByRequestorNot(User user);
+
+    @Query("select r " +
+            "from ItemRequest as r " +
+            "join fetch r.requestor " +
+            "where r.requestor <> :user " +
+            "and (r.created < :created or (r.created = :created and r.id < :id)) " +
+            "order by r.created desc, r.id desc")
+    Slice<ItemRequest> seekByRequestorNot(User user, LocalDateTime created, long id, Pageable page);
 }
@@ -0,0 +1,20 @@
+-- Booker feeds: filtered by booker, ordered by start_date desc, id desc (offset and keyset pages).
+CREATE INDEX IF NOT EXISTS ix_bookings_booker_start ON bookings (booker_id, start_date, id);
+
+-- Per-item lookups: last/next booking, approved bookings of an item, comment eligibility, interval index load.
+CREATE INDEX IF NOT EXISTS ix_bookings_item_status_start ON bookings (item_id, status, start_date);
+
+-- Owner's items by id (offset and keyset pages) and owner booking feeds joining through items.
+CREATE INDEX IF NOT EXISTS ix_items_user ON items (user_id, id);
+
+-- Items answering a request.
+CREATE INDEX IF NOT EXISTS ix_items_request ON items (request_id);
+
+-- Comments of an item, and whether an author already commented on it.
+CREATE INDEX IF NOT EXISTS ix_comments_item_author ON comments (item_id, author_id);
+
+-- Own requests ordered by creation date.
+CREATE INDEX IF NOT EXISTS ix_requests_requester_created ON requests (requester_id, created_date, id);
+
+-- Feed of other users' requests, ordered by created_date desc, id desc.
+CREATE INDEX IF NOT EXISTS ix_requests_created ON requests (created_date, id);
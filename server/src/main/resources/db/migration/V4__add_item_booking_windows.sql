@@ -0,0 +1,20 @@
+-- Last and next approved booking of each item, kept up to date on approval and rolled forward as bookings start.
+CREATE TABLE IF NOT EXISTS item_booking_windows (
+    item_id BIGINT NOT NULL,
+    last_booking_id BIGINT,
+    next_booking_id BIGINT,
+    roll_at TIMESTAMP WITHOUT TIME ZONE,
+    CONSTRAINT pk_item_booking_window PRIMARY KEY (item_id),
+    CONSTRAINT fk_item_booking_window_item FOREIGN KEY(item_id) REFERENCES items(id) ON DELETE CASCADE,
+    CONSTRAINT fk_item_booking_window_last FOREIGN KEY(last_booking_id) REFERENCES bookings(id),
+    CONSTRAINT fk_item_booking_window_next FOREIGN KEY(next_booking_id) REFERENCES bookings(id)
+);
+
+-- Windows whose next booking has started, picked up by the roll-forward job.
+CREATE INDEX IF NOT EXISTS ix_item_booking_windows_roll_at ON item_booking_windows (roll_at);
+
+-- Items already booked get a window that is due at once, so the first roll-forward fills it in.
+INSERT INTO item_booking_windows (item_id, roll_at)
+SELECT DISTINCT item_id, LOCALTIMESTAMP
+FROM bookings
+WHERE status = 'APPROVED';
@@ -0,0 +1,3 @@
+-- Bumped whenever a booking that blocks the item is created or rejected. Booking creation locks the window row, so
+-- a server whose in-memory intervals were loaded at the current version knows no other instance has changed them.
+ALTER TABLE item_booking_windows ADD COLUMN IF NOT EXISTS bookings_version BIGINT NOT NULL DEFAULT 0;
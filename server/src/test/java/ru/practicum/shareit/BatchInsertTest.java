@@ -0,0 +1,59 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import ru.practicum.shareit.cache.EntityCacheConfig;
+import ru.practicum.shareit.cache.EntityCacheProperties;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemSearchIndex;
+import ru.practicum.shareit.item.storage.ItemStorage;
+import ru.practicum.shareit.user.User;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that saving many entities at once takes ids from the sequence a block at a time and sends the inserts to the
+ * database in JDBC batches rather than one by one.
+ */
+@DataJpaTest(properties = StatementCounter.PROPERTY)
+@Import({ItemSearchIndex.class, EntityCacheConfig.class, EntityCacheProperties.class})
+public class BatchInsertTest {
+    private static final int ITEMS = 120;
+    private static final int BATCH_SIZE = 50;
+
+    @Autowired
+    TestEntityManager em;
+    @Autowired
+    ItemStorage itemStorage;
+
+    @Test
+    void itemsAreInsertedInBatchesTest() {
+        User owner = em.persistAndFlush(new User(null, "Ivan", "ivan@mail.com"));
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < ITEMS; i++) {
+            items.add(new Item(null, "drill " + i, "cordless drill", true, owner, null));
+        }
+
+        List<String> statements = StatementCounter.record(() -> {
+            itemStorage.saveAll(items);
+            em.flush();
+        });
+
+        List<String> inserts = statements.stream()
+                .filter(sql -> sql.toLowerCase(Locale.ROOT).startsWith("insert"))
+                .collect(Collectors.toList());
+        List<String> sequenceCalls = statements.stream()
+                .filter(sql -> sql.toLowerCase(Locale.ROOT).contains("nextval"))
+                .collect(Collectors.toList());
+        assertThat(inserts).hasSizeLessThanOrEqualTo((ITEMS + BATCH_SIZE - 1) / BATCH_SIZE);
+        assertThat(sequenceCalls).hasSizeLessThanOrEqualTo(ITEMS / BATCH_SIZE + 2);
+    }
+}
@@ -0,0 +1,122 @@
+package ru.practicum.shareit;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.util.ClassUtils;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Records the statements prepared on the current thread while a call is running together with the values bound to
+ * them, so they can be run again with the same values. Wraps every {@link DataSource} bean once it is imported into
+ * a test context; wrap the call in {@link #record}.
+ */
+public class BoundStatementRecorder implements BeanPostProcessor {
+    private static final ThreadLocal<List<BoundStatement>> STATEMENTS = new ThreadLocal<>();
+
+    public static List<BoundStatement> record(Runnable call) {
+        List<BoundStatement> statements = new ArrayList<>();
+        STATEMENTS.set(statements);
+        try {
+            call.run();
+        } finally {
+            STATEMENTS.remove();
+        }
+        return statements;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof DataSource)) {
+            return bean;
+        }
+        return proxy(bean, (target, method, args) -> {
+            Object result = invoke(target, method, args);
+            return result instanceof Connection ? proxy(result, this::onConnection) : result;
+        });
+    }
+
+    private Object onConnection(Object connection, Method method, Object[] args) throws Throwable {
+        Object result = invoke(connection, method, args);
+        List<BoundStatement> statements = STATEMENTS.get();
+        if (statements == null || !(result instanceof PreparedStatement) || !(args[0] instanceof String)) {
+            return result;
+        }
+
+        BoundStatement statement = new BoundStatement((String) args[0]);
+        statements.add(statement);
+        return proxy(result, (target, called, calledArgs) -> {
+            if (called.getName().startsWith("set") && calledArgs != null && calledArgs.length >= 2
+                    && calledArgs[0] instanceof Integer) {
+                statement.bindings.put((Integer) calledArgs[0], new Binding(called, calledArgs));
+            } else if (called.getName().equals("clearParameters")) {
+                statement.bindings.clear();
+            }
+            return invoke(target, called, calledArgs);
+        });
+    }
+
+    private static Object proxy(Object target, TargetHandler handler) {
+        return Proxy.newProxyInstance(target.getClass().getClassLoader(),
+                ClassUtils.getAllInterfacesForClass(target.getClass()),
+                (proxy, method, args) -> handler.invoke(target, method, args));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private interface TargetHandler {
+        Object invoke(Object target, Method method, Object[] args) throws Throwable;
+    }
+
+    public static class BoundStatement {
+        private final String sql;
+        private final Map<Integer, Binding> bindings = new TreeMap<>();
+
+        private BoundStatement(String sql) {
+            this.sql = sql;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        /**
+         * Binds the recorded values to another statement taking the same parameters.
+         */
+        public void bind(PreparedStatement statement) throws SQLException {
+            for (Binding binding : bindings.values()) {
+                try {
+                    binding.method.invoke(statement, binding.args);
+                } catch (ReflectiveOperationException e) {
+                    throw new SQLException("Could not bind " + binding.method.getName(), e);
+                }
+            }
+        }
+    }
+
+    private static class Binding {
+        private final Method method;
+        private final Object[] args;
+
+        private Binding(Method method, Object[] args) {
+            this.method = method;
+            this.args = args;
+        }
+    }
+}
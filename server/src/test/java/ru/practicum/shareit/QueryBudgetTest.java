@@ -0,0 +1,198 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.NewBookingDto;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.dto.NewItemRequestDto;
+import ru.practicum.shareit.request.service.ItemRequestService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import javax.persistence.EntityManagerFactory;
+import java.io.ByteArrayInputStream;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Calls every service method against {@value #ROWS} rows per listing and checks how many SQL statements it prepared,
+ * so a lookup per row shows up as a blown budget long before production. Entity lookups start from an empty
+ * second-level cache on every call. Inserts are allowed one more statement for the sequence call that opens a new
+ * block of ids. A service method without a budget fails the test as well.
+ */
+@SpringBootTest(properties = StatementCounter.PROPERTY)
+@AutoConfigureTestDatabase
+public class QueryBudgetTest {
+    private static final int ROWS = 50;
+    private static final List<Class<?>> SERVICES = List.of(
+            UserService.class, ItemService.class, BookingService.class, ItemRequestService.class);
+    private static final Cursor FIRST_BY_ID = Cursor.of(0L);
+    private static final Cursor FIRST_BY_DATE = Cursor.of(LocalDateTime.of(3000, 1, 1, 0, 0), Long.MAX_VALUE);
+
+    @Autowired
+    UserService userService;
+    @Autowired
+    ItemService itemService;
+    @Autowired
+    BookingService bookingService;
+    @Autowired
+    ItemRequestService requestService;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    private final Set<String> budgeted = new HashSet<>();
+    private final List<String> exceeded = new ArrayList<>();
+
+    private long owner;
+    private long booker;
+    private long requestor;
+    private long item;
+    private long booking;
+    private long request;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = UUID.randomUUID().toString();
+        owner = addUser("owner", suffix);
+        booker = addUser("booker", suffix);
+        requestor = addUser("requestor", suffix);
+        LocalDateTime now = LocalDateTime.now();
+
+        for (int i = 0; i < ROWS; i++) {
+            ItemRequestDto ownRequest = requestService.add(requestor,
+                    new NewItemRequestDto(0L, "Need a drill " + i, null));
+            ItemDto ownItem = itemService.add(owner,
+                    new ItemDto(0L, "drill " + i, "cordless drill", true, ownRequest.getId()));
+
+            BookingDto past = bookingService.add(booker,
+                    new NewBookingDto(0L, ownItem.getId(), now.minusDays(2), now.minusDays(1)));
+            BookingDto next = bookingService.add(booker,
+                    new NewBookingDto(0L, ownItem.getId(), now.plusDays(1), now.plusDays(2)));
+            bookingService.updateStatus(owner, past.getId(), true);
+            bookingService.updateStatus(owner, next.getId(), true);
+            itemService.addComment(booker, ownItem.getId(), new CommentDto(null, "Fine", null, null));
+
+            item = ownItem.getId();
+            booking = next.getId();
+            request = ownRequest.getId();
+        }
+        BookingDto requestorsPast = bookingService.add(requestor,
+                new NewBookingDto(0L, item, now.minusDays(4), now.minusDays(3)));
+        bookingService.updateStatus(owner, requestorsPast.getId(), true);
+    }
+
+    @Test
+    void serviceCallsStayWithinBudgetsTest() {
+        LocalDateTime now = LocalDateTime.now();
+
+        budget(UserService.class, "findAll", 1, () -> userService.findAll());
+        budget(UserService.class, "findById", 1, () -> userService.findById(owner));
+        budget(UserService.class, "get", 1, () -> userService.get(owner));
+
+        budget(ItemService.class, "findById", 1, () -> itemService.findById(item));
+        budget(ItemService.class, "get", 4, () -> itemService.get(owner, item));
+        budget(ItemService.class, "get", 3, () -> itemService.get(booker, item));
+        budget(ItemService.class, "findByUserId", 4, () -> itemService.findByUserId(owner, 0, ROWS));
+        budget(ItemService.class, "findByUserId", 4, () -> itemService.findByUserId(owner, FIRST_BY_ID, ROWS));
+        budget(ItemService.class, "countByUserId", 2, () -> itemService.countByUserId(owner));
+        budget(ItemService.class, "search", 1, () -> itemService.search("drill", 0, ROWS));
+        budget(ItemService.class, "search", 1, () -> itemService.search("drill", FIRST_BY_ID, ROWS));
+
+        budget(BookingService.class, "get", 2, () -> bookingService.get(booker, booking));
+        budget(BookingService.class, "getByBookerId", 2, () -> bookingService.getByBookerId(booker, "ALL", 0, ROWS));
+        budget(BookingService.class, "getByBookerId", 2,
+                () -> bookingService.getByBookerId(booker, "ALL", FIRST_BY_DATE, ROWS));
+        budget(BookingService.class, "countByBookerId", 2, () -> bookingService.countByBookerId(booker, "ALL"));
+        budget(BookingService.class, "getByOwnerId", 2, () -> bookingService.getByOwnerId(owner, "ALL", 0, ROWS));
+        budget(BookingService.class, "getByOwnerId", 2,
+                () -> bookingService.getByOwnerId(owner, "ALL", FIRST_BY_DATE, ROWS));
+        budget(BookingService.class, "countByOwnerId", 2, () -> bookingService.countByOwnerId(owner, "ALL"));
+        budget(BookingService.class, "exportByOwnerId", 2,
+                () -> bookingService.exportByOwnerId(owner, "ALL", booking -> booking.getItem().getName()));
+
+        budget(ItemRequestService.class, "findByUserId", 3, () -> requestService.findByUserId(requestor));
+        budget(ItemRequestService.class, "findAllButNotUserId", 3,
+                () -> requestService.findAllButNotUserId(booker, 0, ROWS));
+        budget(ItemRequestService.class, "findAllButNotUserId", 3,
+                () -> requestService.findAllButNotUserId(booker, FIRST_BY_DATE, ROWS));
+        budget(ItemRequestService.class, "countAllButNotUserId", 2,
+                () -> requestService.countAllButNotUserId(booker));
+        budget(ItemRequestService.class, "get", 3, () -> requestService.get(booker, request));
+
+        budget(ItemRequestService.class, "add", 4,
+                () -> requestService.add(booker, new NewItemRequestDto(0L, "Need a saw", null)));
+        budget(ItemService.class, "add", 4,
+                () -> itemService.add(owner, new ItemDto(0L, "saw", "hand saw", true, null)));
+        budget(ItemService.class, "importItems", 4,
+                () -> itemService.importItems(owner, importRows()));
+        budget(ItemService.class, "update", 4,
+                () -> itemService.update(owner, new ItemDto(item, "drill", null, null, null)));
+        budget(ItemService.class, "addComment", 6,
+                () -> itemService.addComment(requestor, item, new CommentDto(null, "Fine", null, null)));
+        BookingDto[] added = new BookingDto[1];
+        budget(BookingService.class, "add", 5, () -> added[0] = bookingService.add(requestor,
+                new NewBookingDto(0L, item, now.plusDays(5), now.plusDays(6))));
+        budget(BookingService.class, "updateStatus", 4,
+                () -> bookingService.updateStatus(owner, added[0].getId(), false));
+        BookingDto approved = bookingService.add(requestor,
+                new NewBookingDto(0L, item, now.plusDays(7), now.plusDays(8)));
+        budget(BookingService.class, "updateStatus", 6,
+                () -> bookingService.updateStatus(owner, approved.getId(), true));
+
+        UserDto user = userService.add(new UserDto(null, "Petr", UUID.randomUUID() + "@mail.com"));
+        budget(UserService.class, "add", 2,
+                () -> userService.add(new UserDto(null, "Anna", UUID.randomUUID() + "@mail.com")));
+        budget(UserService.class, "update", 3,
+                () -> userService.update(new UserDto(user.getId(), "Pavel", null)));
+        budget(UserService.class, "delete", 3, () -> userService.delete(user.getId()));
+
+        Set<String> declared = SERVICES.stream()
+                .flatMap(service -> Arrays.stream(service.getDeclaredMethods())
+                        .map(method -> key(service, method)))
+                .collect(Collectors.toSet());
+        assertThat(budgeted).containsAll(declared);
+        assertThat(exceeded).isEmpty();
+    }
+
+    private void budget(Class<?> service, String method, int statements, Runnable call) {
+        entityManagerFactory.getCache().evictAll();
+
+        List<String> prepared = StatementCounter.record(call);
+        budgeted.add(service.getSimpleName() + "." + method);
+        if (prepared.size() > statements) {
+            exceeded.add(String.format("%s.%s prepared %d statements, budget is %d:%n%s",
+                    service.getSimpleName(), method, prepared.size(), statements, String.join("\n", prepared)));
+        }
+    }
+
+    private ByteArrayInputStream importRows() {
+        StringBuilder rows = new StringBuilder();
+        for (int i = 0; i < ROWS; i++) {
+            rows.append(String.format("{\"name\": \"saw %d\", \"description\": \"hand saw\", \"available\": true, "
+                    + "\"requestId\": %d}%n", i, request));
+        }
+        return new ByteArrayInputStream(rows.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private long addUser(String name, String suffix) {
+        return userService.add(new UserDto(null, name, name + "-" + suffix + "@mail.com")).getId();
+    }
+
+    private static String key(Class<?> service, Method method) {
+        return service.getSimpleName() + "." + method.getName();
+    }
+}
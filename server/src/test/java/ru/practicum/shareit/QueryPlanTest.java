@@ -0,0 +1,243 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.BoundStatementRecorder.BoundStatement;
+import ru.practicum.shareit.cache.EntityCacheConfig;
+import ru.practicum.shareit.cache.EntityCacheProperties;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.ItemBookingWindow;
+import ru.practicum.shareit.booking.Status;
+import ru.practicum.shareit.booking.storage.BookingStorage;
+import ru.practicum.shareit.booking.storage.ItemBookingWindowStorage;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.CommentStorage;
+import ru.practicum.shareit.item.storage.ItemSearchIndex;
+import ru.practicum.shareit.item.storage.ItemStorage;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.storage.ItemRequestStorage;
+import ru.practicum.shareit.user.User;
+
+import java.lang.reflect.Method;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs every repository query against a seeded database and checks with EXPLAIN, bound to the values the query ran
+ * with, that none of them scans a whole table. A query method added to one of the storages without being exercised here fails the test as well.
+ */
+@DataJpaTest
+@Import({ItemSearchIndex.class, EntityCacheConfig.class, EntityCacheProperties.class,
+        BoundStatementRecorder.class})
+public class QueryPlanTest {
+    private static final int USERS = 20;
+    private static final int ITEMS_PER_USER = 5;
+    private static final int BOOKINGS_PER_ITEM = 5;
+    private static final LocalDateTime NOW = LocalDateTime.parse("2024-01-01T12:00:00");
+    private static final List<Class<?>> STORAGES = List.of(
+            BookingStorage.class, ItemBookingWindowStorage.class, ItemStorage.class, CommentStorage.class,
+            ItemRequestStorage.class);
+    // "Everyone else's requests" can only be served by walking the created_date index and skipping own rows,
+    // which H2's planner reports as a table scan.
+    private static final Set<String> SCANS_ALLOWED = Set.of("findByRequestorNot", "seekByRequestorNot");
+
+    @Autowired
+    TestEntityManager em;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    BookingStorage bookingStorage;
+    @Autowired
+    ItemBookingWindowStorage windowStorage;
+    @Autowired
+    ItemStorage itemStorage;
+    @Autowired
+    CommentStorage commentStorage;
+    @Autowired
+    ItemRequestStorage requestStorage;
+
+    private final Map<String, List<BoundStatement>> statementsByQuery = new LinkedHashMap<>();
+
+    private User user;
+    private Item item;
+    private ItemRequest request;
+    private Booking booking;
+
+    @BeforeEach
+    void setUp() {
+        List<User> users = new ArrayList<>();
+        for (int u = 0; u < USERS; u++) {
+            User owner = em.persist(new User(null, "User " + u, "user" + u + "@mail.com"));
+            users.add(owner);
+            ItemRequest ownRequest = em.persist(new ItemRequest(null, "Need a drill " + u, owner, NOW.minusDays(u)));
+
+            for (int i = 0; i < ITEMS_PER_USER; i++) {
+                Item ownItem = em.persist(new Item(null, "drill " + i, "cordless drill", true, owner,
+                        i == 0 ? ownRequest : null));
+                for (int b = 0; b < BOOKINGS_PER_ITEM; b++) {
+                    LocalDateTime start = NOW.plusDays(2L * (b - BOOKINGS_PER_ITEM / 2));
+                    User booker = users.get((u + b) % users.size());
+                    em.persist(new Booking(start, start.plusDays(1), ownItem, booker, Status.APPROVED));
+                }
+                em.persist(new Comment(0L, "Fine", ownItem, owner, NOW));
+                em.persist(new ItemBookingWindow(ownItem.getId(), null, null, NOW.plusHours(i), 0L));
+            }
+        }
+        em.flush();
+        em.clear();
+
+        user = em.find(User.class, users.get(USERS / 2).getId());
+        item = itemStorage.findByUserOrderById(user, PageRequest.of(0, 1)).getContent().get(0);
+        request = requestStorage.findByRequestorOrderByCreatedDesc(user).get(0);
+        booking = bookingStorage.findByBookerIdOrderByStartDesc(user.getId(), PageRequest.of(0, 1)).getContent().get(0);
+    }
+
+    @Test
+    void repositoryQueriesUseIndexesTest() {
+        PageRequest page = PageRequest.of(1, 5);
+        PageRequest bookingPage = PageRequest.of(1, 5, Sort.by(Sort.Direction.DESC, "start", "id"));
+        long userId = user.getId();
+        long bookingId = booking.getId();
+        LocalDateTime bookingStart = booking.getStart();
+
+        em.clear();
+        run("findById", () -> {
+            bookingStorage.findById(bookingId);
+            itemStorage.findById(item.getId());
+        });
+        run("findByBookerIdOrderByStartDesc", () -> bookingStorage.findByBookerIdOrderByStartDesc(userId, page));
+        run("findByBookerIdAndStartBeforeAndEndAfterOrderByStartDesc",
+                () -> bookingStorage.findByBookerIdAndStartBeforeAndEndAfterOrderByStartDesc(userId, NOW, NOW, page));
+        run("findByBookerIdAndEndBeforeOrderByStartDesc",
+                () -> bookingStorage.findByBookerIdAndEndBeforeOrderByStartDesc(userId, NOW, page));
+        run("findByBookerIdAndStartAfterOrderByStartDesc",
+                () -> bookingStorage.findByBookerIdAndStartAfterOrderByStartDesc(userId, NOW, page));
+        run("findByBookerIdAndStatusOrderByStartDesc",
+                () -> bookingStorage.findByBookerIdAndStatusOrderByStartDesc(userId, Status.APPROVED, page));
+        run("findByItemUserOrderByStartDesc", () -> bookingStorage.findByItemUserOrderByStartDesc(user, page));
+        run("findByItemUserAndStartBeforeAndEndAfterOrderByStartDesc",
+                () -> bookingStorage.findByItemUserAndStartBeforeAndEndAfterOrderByStartDesc(user, NOW, NOW, page));
+        run("findByItemUserAndEndBeforeOrderByStartDesc",
+                () -> bookingStorage.findByItemUserAndEndBeforeOrderByStartDesc(user, NOW, page));
+        run("findByItemUserAndStartAfterOrderByStartDesc",
+                () -> bookingStorage.findByItemUserAndStartAfterOrderByStartDesc(user, NOW, page));
+        run("findByItemUserAndStatusOrderByStartDesc",
+                () -> bookingStorage.findByItemUserAndStatusOrderByStartDesc(user, Status.APPROVED, page));
+        run("seekByBookerId", () -> bookingStorage.seekByBookerId(userId, bookingStart, bookingId, bookingPage));
+        run("seekByBookerIdCurrent",
+                () -> bookingStorage.seekByBookerIdCurrent(userId, NOW, bookingStart, bookingId, bookingPage));
+        run("seekByBookerIdPast",
+                () -> bookingStorage.seekByBookerIdPast(userId, NOW, bookingStart, bookingId, bookingPage));
+        run("seekByBookerIdFuture",
+                () -> bookingStorage.seekByBookerIdFuture(userId, NOW, bookingStart, bookingId, bookingPage));
+        run("seekByBookerIdAndStatus",
+                () -> bookingStorage.seekByBookerIdAndStatus(userId, Status.APPROVED, bookingStart, bookingId,
+                        bookingPage));
+        run("seekByItemUser", () -> bookingStorage.seekByItemUser(user, bookingStart, bookingId, bookingPage));
+        run("seekByItemUserCurrent",
+                () -> bookingStorage.seekByItemUserCurrent(user, NOW, bookingStart, bookingId, bookingPage));
+        run("seekByItemUserPast",
+                () -> bookingStorage.seekByItemUserPast(user, NOW, bookingStart, bookingId, bookingPage));
+        run("seekByItemUserFuture",
+                () -> bookingStorage.seekByItemUserFuture(user, NOW, bookingStart, bookingId, bookingPage));
+        run("seekByItemUserAndStatus",
+                () -> bookingStorage.seekByItemUserAndStatus(user, Status.APPROVED, bookingStart, bookingId,
+                        bookingPage));
+        run("countByBookerId", () -> bookingStorage.countByBookerId(userId));
+        run("countByBookerIdAndStartBeforeAndEndAfter",
+                () -> bookingStorage.countByBookerIdAndStartBeforeAndEndAfter(userId, NOW, NOW));
+        run("countByBookerIdAndEndBefore", () -> bookingStorage.countByBookerIdAndEndBefore(userId, NOW));
+        run("countByBookerIdAndStartAfter", () -> bookingStorage.countByBookerIdAndStartAfter(userId, NOW));
+        run("countByBookerIdAndStatus", () -> bookingStorage.countByBookerIdAndStatus(userId, Status.APPROVED));
+        run("countByItemUser", () -> bookingStorage.countByItemUser(user));
+        run("countByItemUserAndStartBeforeAndEndAfter",
+                () -> bookingStorage.countByItemUserAndStartBeforeAndEndAfter(user, NOW, NOW));
+        run("countByItemUserAndEndBefore", () -> bookingStorage.countByItemUserAndEndBefore(user, NOW));
+        run("countByItemUserAndStartAfter", () -> bookingStorage.countByItemUserAndStartAfter(user, NOW));
+        run("countByItemUserAndStatus", () -> bookingStorage.countByItemUserAndStatus(user, Status.APPROVED));
+        run("findLastAndNextByItemIds",
+                () -> bookingStorage.findLastAndNextByItemIds(List.of(item.getId()), Status.APPROVED, NOW));
+        run("findByItemIdAndStatusInAndEndAfter", () -> bookingStorage.findByItemIdAndStatusInAndEndAfter(
+                item.getId(), EnumSet.of(Status.WAITING, Status.APPROVED), NOW));
+        run("existsByItemAndBookerAndStatusAndEndBefore",
+                () -> bookingStorage.existsByItemAndBookerAndStatusAndEndBefore(item, user, Status.APPROVED, NOW));
+        run("compareAndSetStatus",
+                () -> bookingStorage.compareAndSetStatus(bookingId, Status.WAITING, Status.APPROVED));
+        run("findWithBookingsByItemIds", () -> windowStorage.findWithBookingsByItemIds(List.of(item.getId())));
+        run("lockByItemId", () -> windowStorage.lockByItemId(item.getId()));
+        run("lockDue", () -> windowStorage.lockDue(NOW, PageRequest.of(0, 5)));
+        run("streamByItemUser", () -> drain(bookingStorage.streamByItemUser(user)));
+        run("streamByItemUserCurrent", () -> drain(bookingStorage.streamByItemUserCurrent(user, NOW)));
+        run("streamByItemUserPast", () -> drain(bookingStorage.streamByItemUserPast(user, NOW)));
+        run("streamByItemUserFuture", () -> drain(bookingStorage.streamByItemUserFuture(user, NOW)));
+        run("streamByItemUserAndStatus", () -> drain(bookingStorage.streamByItemUserAndStatus(user, Status.APPROVED)));
+
+        run("findByUserOrderById", () -> itemStorage.findByUserOrderById(user, page));
+        run("findByUserAndIdGreaterThanOrderById",
+                () -> itemStorage.findByUserAndIdGreaterThanOrderById(user, 0L, page));
+        run("countByUser", () -> itemStorage.countByUser(user));
+        run("findByRequest", () -> itemStorage.findByRequest(request));
+        run("findByRequestIds", () -> itemStorage.findByRequestIds(List.of(request.getId())));
+
+        run("findByItemOrderById", () -> commentStorage.findByItemOrderById(item));
+        run("findByItemIds", () -> commentStorage.findByItemIds(List.of(item.getId())));
+        run("existsByItemAndAuthor", () -> commentStorage.existsByItemAndAuthor(item, user));
+
+        run("findByRequestorOrderByCreatedDesc", () -> requestStorage.findByRequestorOrderByCreatedDesc(user));
+        run("findByRequestorNot", () -> requestStorage.findByRequestorNot(user, PageRequest.of(1, 5,
+                Sort.by(Sort.Direction.DESC, "created", "id"))));
+        run("countByRequestorNot", () -> requestStorage.countByRequestorNot(user));
+        run("seekByRequestorNot", () -> requestStorage.seekByRequestorNot(user, request.getCreated(), request.getId(),
+                PageRequest.of(0, 5)));
+
+        Set<String> declared = STORAGES.stream()
+                .flatMap(storage -> Arrays.stream(storage.getDeclaredMethods()))
+                .map(Method::getName)
+                .collect(Collectors.toSet());
+        assertThat(statementsByQuery.keySet()).containsAll(declared);
+
+        Map<String, List<String>> scans = new LinkedHashMap<>();
+        statementsByQuery.forEach((query, statements) -> {
+            if (SCANS_ALLOWED.contains(query)) {
+                return;
+            }
+            List<String> plans = statements.stream()
+                    .filter(statement -> statement.getSql().trim().toLowerCase(Locale.ROOT).startsWith("select"))
+                    .map(this::explain)
+                    .filter(plan -> plan.contains(".tableScan"))
+                    .collect(Collectors.toList());
+            if (!plans.isEmpty()) {
+                scans.put(query, plans);
+            }
+        });
+        assertThat(scans).isEmpty();
+    }
+
+    private void run(String query, Runnable call) {
+        statementsByQuery.put(query, BoundStatementRecorder.record(call));
+    }
+
+    private static void drain(Stream<?> rows) {
+        try (rows) {
+            rows.forEach(row -> {
+            });
+        }
+    }
+
+    private String explain(BoundStatement statement) {
+        return String.join("\n", jdbcTemplate.query("explain " + statement.getSql(), statement::bind,
+                (rs, rowNum) -> rs.getString(1)));
+    }
+}
@@ -15,6 +15,7 @@ import ru.practicum.shareit.user.User;
 import javax.persistence.EntityManager;
 import javax.persistence.TypedQuery;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -138,7 +139,7 @@ public class BooingServiceIntTest {
         em.persist(booking1);
         em.persist(booking2);
 
-        List<BookingDto> bookings = bookingService.getByOwnerId(user1.getId(), "REJECTED", 0, 25);
+        List<BookingDto> bookings = bookingService.getByOwnerId(user1.getId(), "REJECTED", 0, 25).getContent();
 
         TypedQuery<Booking> query = em.createQuery(
                 "Select b from Booking b join b.item i where i.user = :user and b.status = :status", Booking.class);
@@ -173,7 +174,7 @@ public class BooingServiceIntTest {
         em.persist(booking1);
         em.persist(booking2);
 
-        List<BookingDto> bookings = bookingService.getByBookerId(user1.getId(), "REJECTED", 0, 25);
+        List<BookingDto> bookings = bookingService.getByBookerId(user1.getId(), "REJECTED", 0, 25).getContent();
 
         TypedQuery<Booking> query = em.createQuery(
                 "Select b from Booking b where b.booker = :user and b.status = :status", Booking.class);
@@ -182,4 +183,56 @@ public class BooingServiceIntTest {
         assertThat(result, hasSize(1));
         assertThat(result, contains(booking1));
     }
+
+    @Test
+    void exportByOwnerIdTest() {
+        User user1 = new User(null, "Ivan", "ivan@mail.com");
+        User user2 = new User(null, "Petr", "petr@mail.com");
+        em.persist(user1);
+        em.persist(user2);
+        Item item1 = new Item(null, "table", "Ivan's table", true, user2);
+        Item item2 = new Item(null, "chair", "Ivan's chair", true, user2);
+        em.persist(item1);
+        em.persist(item2);
+        Booking booking1 = new Booking(
+                LocalDateTime.parse("2023-01-01T12:00:00"),
+                LocalDateTime.parse("2023-01-01T13:00:00"),
+                item1,
+                user1,
+                Status.APPROVED
+        );
+        Booking booking2 = new Booking(
+                LocalDateTime.parse("2024-01-01T12:00:00"),
+                LocalDateTime.parse("2024-01-01T13:00:00"),
+                item2,
+                user1,
+                Status.REJECTED
+        );
+        Booking booking3 = new Booking(
+                LocalDateTime.parse("2025-01-01T12:00:00"),
+                LocalDateTime.parse("2025-01-01T13:00:00"),
+                item1,
+                user1,
+                Status.REJECTED
+        );
+        em.persist(booking1);
+        em.persist(booking2);
+        em.persist(booking3);
+
+        List<BookingDto> all = new ArrayList<>();
+        bookingService.exportByOwnerId(user2.getId(), "ALL", all::add);
+        List<BookingDto> rejected = new ArrayList<>();
+        bookingService.exportByOwnerId(user2.getId(), "REJECTED", rejected::add);
+        List<BookingDto> none = new ArrayList<>();
+        bookingService.exportByOwnerId(user1.getId(), "ALL", none::add);
+
+        assertThat(all, contains(
+                hasProperty("id", equalTo(booking3.getId())),
+                hasProperty("id", equalTo(booking2.getId())),
+                hasProperty("id", equalTo(booking1.getId()))
+        ));
+        assertThat(all.get(1).getItem().getName(), equalTo("chair"));
+        assertThat(rejected, hasSize(2));
+        assertThat(none, empty());
+    }
 }
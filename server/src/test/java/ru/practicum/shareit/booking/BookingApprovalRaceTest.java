@@ -0,0 +1,219 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.NewBookingDto;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.booking.service.ItemBookingWindows;
+import ru.practicum.shareit.booking.storage.BookingIntervalIndex;
+import ru.practicum.shareit.booking.storage.BookingStorage;
+import ru.practicum.shareit.exception.NotAvailableException;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.item.storage.ItemStorage;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.user.storage.UserStorage;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Fires concurrent approvals and rejections at the same booking and checks that exactly one of them wins, concurrent
+ * first approvals of an item's bookings, which race to create its booking window, and concurrent overlapping bookings
+ * of one item, including one made through a second interval index standing in for another server instance. The calls
+ * need committed rows, so the context and its database are thrown away afterwards.
+ */
+@SpringBootTest
+@AutoConfigureTestDatabase
+@DirtiesContext
+public class BookingApprovalRaceTest {
+    private static final int ROUNDS = 20;
+    private static final int THREADS = 16;
+
+    @Autowired
+    UserService userService;
+    @Autowired
+    ItemService itemService;
+    @Autowired
+    BookingService bookingService;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    ItemBookingWindows bookingWindows;
+    @Autowired
+    BookingStorage bookingStorage;
+    @Autowired
+    ItemStorage itemStorage;
+    @Autowired
+    UserStorage userStorage;
+
+    @Test
+    void concurrentApprovalsHaveOneWinnerTest() throws Exception {
+        String suffix = UUID.randomUUID().toString();
+        long owner = userService.add(new UserDto(null, "owner", "owner-" + suffix + "@mail.com")).getId();
+        long booker = userService.add(new UserDto(null, "booker", "booker-" + suffix + "@mail.com")).getId();
+        long item = itemService.add(owner, new ItemDto(0L, "drill", "cordless drill", true, null)).getId();
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                long booking = bookingService.add(booker, new NewBookingDto(0L, item,
+                        start.plusDays(2L * round), start.plusDays(2L * round + 1))).getId();
+
+                CountDownLatch ready = new CountDownLatch(THREADS);
+                CountDownLatch go = new CountDownLatch(1);
+                List<Future<BookingDto>> calls = new ArrayList<>();
+                for (int t = 0; t < THREADS; t++) {
+                    boolean approved = t % 2 == 0;
+                    calls.add(executor.submit(() -> {
+                        ready.countDown();
+                        go.await();
+                        return bookingService.updateStatus(owner, booking, approved);
+                    }));
+                }
+                ready.await();
+                go.countDown();
+
+                List<BookingDto> winners = new ArrayList<>();
+                for (Future<BookingDto> call : calls) {
+                    try {
+                        winners.add(call.get(10, TimeUnit.SECONDS));
+                    } catch (ExecutionException e) {
+                        assertThat(e.getCause()).isInstanceOf(NotAvailableException.class);
+                    }
+                }
+
+                assertThat(winners).hasSize(1);
+                assertThat(bookingService.get(owner, booking).getStatus()).isEqualTo(winners.get(0).getStatus());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void concurrentFirstApprovalsShareOneWindowTest() throws Exception {
+        String suffix = UUID.randomUUID().toString();
+        long owner = userService.add(new UserDto(null, "owner", "owner-" + suffix + "@mail.com")).getId();
+        long booker = userService.add(new UserDto(null, "booker", "booker-" + suffix + "@mail.com")).getId();
+        LocalDateTime start = LocalDateTime.now().plusDays(1).withNano(0);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                long item = itemService.add(owner, new ItemDto(0L, "drill", "cordless drill", true, null)).getId();
+                List<Long> bookings = new ArrayList<>();
+                for (int t = 0; t < THREADS; t++) {
+                    bookings.add(bookingService.add(booker, new NewBookingDto(0L, item,
+                            start.plusDays(2L * t), start.plusDays(2L * t + 1))).getId());
+                }
+
+                CountDownLatch ready = new CountDownLatch(THREADS);
+                CountDownLatch go = new CountDownLatch(1);
+                List<Future<BookingDto>> calls = new ArrayList<>();
+                for (long booking : bookings) {
+                    calls.add(executor.submit(() -> {
+                        ready.countDown();
+                        go.await();
+                        return bookingService.updateStatus(owner, booking, true);
+                    }));
+                }
+                ready.await();
+                go.countDown();
+
+                for (Future<BookingDto> call : calls) {
+                    assertThat(call.get(10, TimeUnit.SECONDS).getStatus()).isEqualTo(Status.APPROVED);
+                }
+                assertThat(jdbcTemplate.queryForObject(
+                        "select next_booking_id from item_booking_windows where item_id = ?", Long.class, item))
+                        .isEqualTo(bookings.get(0));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void concurrentOverlappingBookingsHaveOneWinnerTest() throws Exception {
+        String suffix = UUID.randomUUID().toString();
+        long owner = userService.add(new UserDto(null, "owner", "owner-" + suffix + "@mail.com")).getId();
+        long booker = userService.add(new UserDto(null, "booker", "booker-" + suffix + "@mail.com")).getId();
+        LocalDateTime start = LocalDateTime.now().plusDays(1).withNano(0);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                long item = itemService.add(owner, new ItemDto(0L, "drill", "cordless drill", true, null)).getId();
+
+                CountDownLatch ready = new CountDownLatch(THREADS);
+                CountDownLatch go = new CountDownLatch(1);
+                List<Future<BookingDto>> calls = new ArrayList<>();
+                for (int t = 0; t < THREADS; t++) {
+                    LocalDateTime from = start.plusHours(t % 3);
+                    calls.add(executor.submit(() -> {
+                        ready.countDown();
+                        go.await();
+                        return bookingService.add(booker, new NewBookingDto(0L, item, from, from.plusHours(4)));
+                    }));
+                }
+                ready.await();
+                go.countDown();
+
+                List<BookingDto> winners = new ArrayList<>();
+                for (Future<BookingDto> call : calls) {
+                    try {
+                        winners.add(call.get(10, TimeUnit.SECONDS));
+                    } catch (ExecutionException e) {
+                        assertThat(e.getCause()).isInstanceOf(NotAvailableException.class);
+                    }
+                }
+
+                assertThat(winners).hasSize(1);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void bookingByAnotherInstanceIsSeenTest() {
+        String suffix = UUID.randomUUID().toString();
+        long owner = userService.add(new UserDto(null, "owner", "owner-" + suffix + "@mail.com")).getId();
+        long booker = userService.add(new UserDto(null, "booker", "booker-" + suffix + "@mail.com")).getId();
+        long item = itemService.add(owner, new ItemDto(0L, "drill", "cordless drill", true, null)).getId();
+        LocalDateTime start = LocalDateTime.now().plusDays(1).withNano(0);
+        bookingService.add(booker, new NewBookingDto(0L, item, start, start.plusHours(1)));
+
+        BookingIntervalIndex otherInstance = new BookingIntervalIndex(bookingStorage);
+        transactionTemplate.executeWithoutResult(status -> otherInstance.reserve(bookingWindows.lock(item),
+                start.plusHours(2), start.plusHours(3),
+                () -> bookingStorage.save(new Booking(start.plusHours(2), start.plusHours(3),
+                        itemStorage.findById(item).orElseThrow(), userStorage.findById(booker).orElseThrow(),
+                        Status.WAITING))));
+
+        assertThatThrownBy(() -> bookingService.add(booker,
+                new NewBookingDto(0L, item, start.plusHours(2), start.plusHours(4))))
+                .isInstanceOf(NotAvailableException.class);
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status -> otherInstance.reserve(
+                bookingWindows.lock(item), start, start.plusHours(1), () -> {
+                    throw new AssertionError("Overlapping booking saved");
+                })))
+                .isInstanceOf(NotAvailableException.class);
+    }
+}
@@ -0,0 +1,162 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.storage.BookingIntervalIndex;
+import ru.practicum.shareit.booking.storage.BookingStorage;
+import ru.practicum.shareit.exception.NotAvailableException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BookingIntervalIndexTest {
+    private static final LocalDateTime NOON = LocalDateTime.now().plusDays(1).withHour(12).withNano(0);
+
+    @Mock
+    private BookingStorage bookingStorage;
+
+    private BookingIntervalIndex intervalIndex;
+    private Item item;
+    private User booker;
+    private ItemBookingWindow window;
+    private final AtomicLong ids = new AtomicLong(100);
+
+    @BeforeEach
+    void setUp() {
+        intervalIndex = new BookingIntervalIndex(bookingStorage);
+        User owner = new User(0L, "Ivan", "ivan@mail.com");
+        booker = new User(1L, "Petr", "petr@mail.com");
+        item = new Item(0L, "table", "Ivan's table", true, owner, null);
+        window = new ItemBookingWindow(item.getId());
+    }
+
+    @Test
+    void reserveRejectsOverlapWithLoadedBookingTest() {
+        Booking existing = new Booking(1L, NOON, NOON.plusHours(2), item, booker, Status.APPROVED);
+        when(bookingStorage.findByItemIdAndStatusInAndEndAfter(anyLong(), any(), any())).thenReturn(List.of(existing));
+
+        Assertions.assertThrows(NotAvailableException.class,
+                () -> reserve(NOON.plusHours(1), NOON.plusHours(3)));
+        Assertions.assertThrows(NotAvailableException.class,
+                () -> reserve(NOON.minusHours(1), NOON.plusHours(1)));
+        Assertions.assertThrows(NotAvailableException.class,
+                () -> reserve(NOON.minusHours(1), NOON.plusHours(3)));
+
+        reserve(NOON.plusHours(2), NOON.plusHours(3));
+        reserve(NOON.minusHours(1), NOON);
+
+        verify(bookingStorage, times(1)).findByItemIdAndStatusInAndEndAfter(anyLong(), any(), any());
+    }
+
+    @Test
+    void reserveRejectsOverlapWithOverlappingLoadedBookingsTest() {
+        Booking wide = new Booking(1L, NOON.minusHours(2), NOON.plusHours(8), item, booker, Status.APPROVED);
+        Booking inside = new Booking(2L, NOON.minusHours(1), NOON, item, booker, Status.WAITING);
+        when(bookingStorage.findByItemIdAndStatusInAndEndAfter(anyLong(), any(), any()))
+                .thenReturn(List.of(wide, inside));
+
+        Assertions.assertThrows(NotAvailableException.class,
+                () -> reserve(NOON.plusHours(3), NOON.plusHours(4)));
+
+        intervalIndex.release(window, wide);
+
+        reserve(NOON.plusHours(3), NOON.plusHours(4));
+        Assertions.assertThrows(NotAvailableException.class,
+                () -> reserve(NOON.minusMinutes(30), NOON.plusMinutes(30)));
+    }
+
+    @Test
+    void releaseFreesIntervalTest() {
+        when(bookingStorage.findByItemIdAndStatusInAndEndAfter(anyLong(), any(), any())).thenReturn(List.of());
+
+        Booking booking = reserve(NOON, NOON.plusHours(1));
+        Assertions.assertThrows(NotAvailableException.class, () -> reserve(NOON, NOON.plusHours(1)));
+
+        intervalIndex.release(window, booking);
+
+        reserve(NOON, NOON.plusHours(1));
+    }
+
+    @Test
+    void reserveReloadsIntervalsChangedByAnotherInstanceTest() {
+        when(bookingStorage.findByItemIdAndStatusInAndEndAfter(anyLong(), any(), any())).thenReturn(List.of());
+        reserve(NOON, NOON.plusHours(1));
+
+        Booking elsewhere = new Booking(1L, NOON.plusHours(2), NOON.plusHours(3), item, booker, Status.WAITING);
+        when(bookingStorage.findByItemIdAndStatusInAndEndAfter(anyLong(), any(), any())).thenReturn(List.of(elsewhere));
+        window.setBookingsVersion(window.getBookingsVersion() + 1);
+
+        Assertions.assertThrows(NotAvailableException.class,
+                () -> reserve(NOON.plusHours(2), NOON.plusHours(3)));
+        verify(bookingStorage, times(2)).findByItemIdAndStatusInAndEndAfter(anyLong(), any(), any());
+    }
+
+    @Test
+    void reserveAppliesOnlyCommittedChangesTest() {
+        when(bookingStorage.findByItemIdAndStatusInAndEndAfter(anyLong(), any(), any())).thenReturn(List.of());
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            reserve(NOON, NOON.plusHours(1));
+            rollback();
+
+            Booking booking = reserve(NOON, NOON.plusHours(1));
+            commit();
+            Assertions.assertThrows(NotAvailableException.class, () -> reserve(NOON, NOON.plusHours(1)));
+
+            intervalIndex.release(window, booking);
+            commit();
+            reserve(NOON.plusMinutes(30), NOON.plusHours(1));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        verify(bookingStorage, times(1)).findByItemIdAndStatusInAndEndAfter(anyLong(), any(), any());
+    }
+
+    @Test
+    void evictEndedDropsItemsWithOnlyPastBookingsTest() {
+        when(bookingStorage.findByItemIdAndStatusInAndEndAfter(anyLong(), any(), any())).thenReturn(List.of());
+        LocalDateTime past = LocalDateTime.now().minusDays(2);
+        reserve(past, past.plusHours(1));
+
+        intervalIndex.evictEnded();
+        reserve(NOON, NOON.plusHours(1));
+        intervalIndex.evictEnded();
+        reserve(NOON.plusHours(1), NOON.plusHours(2));
+
+        verify(bookingStorage, times(2)).findByItemIdAndStatusInAndEndAfter(anyLong(), any(), any());
+    }
+
+    private void commit() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.initSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+    }
+
+    // The synchronizations never run and the window row keeps the version it had before the transaction
+    private void rollback() {
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.initSynchronization();
+        window.setBookingsVersion(window.getBookingsVersion() - 1);
+    }
+
+    private Booking reserve(LocalDateTime start, LocalDateTime end) {
+        return intervalIndex.reserve(window, start, end,
+                () -> new Booking(ids.incrementAndGet(), start, end, item, booker, Status.WAITING));
+    }
+}
@@ -9,21 +9,28 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.NewBookingDto;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.service.BookingServiceImpl;
+import ru.practicum.shareit.booking.service.ItemBookingWindows;
+import ru.practicum.shareit.booking.storage.BookingIntervalIndex;
 import ru.practicum.shareit.booking.storage.BookingStorage;
 import ru.practicum.shareit.exception.NoSuchEntityException;
 import ru.practicum.shareit.exception.NotAvailableException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.pagination.OffsetPageRequest;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.service.UserService;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
@@ -35,6 +42,10 @@ public class BookingServiceTest {
     @Mock
     private BookingStorage bookingStorage;
     @Mock
+    private BookingIntervalIndex bookingIntervalIndex;
+    @Mock
+    private ItemBookingWindows bookingWindows;
+    @Mock
     private UserService userService;
 
     @Mock
@@ -58,6 +69,9 @@ public class BookingServiceTest {
         when(userService.findById(anyLong())).thenReturn(user);
         when(itemService.findById(anyLong())).thenReturn(item);
         when(bookingStorage.save(any())).thenReturn(booking);
+        when(bookingWindows.lock(anyLong())).thenReturn(new ItemBookingWindow(item.getId()));
+        when(bookingIntervalIndex.reserve(any(), any(), any(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<Booking>>getArgument(3).get());
 
         BookingDto expectedBooking = bookingService.add(user.getId(), newBookingDto);
 
@@ -189,12 +203,13 @@ public class BookingServiceTest {
 
         when(userService.findById(anyLong())).thenReturn(user);
         when(bookingStorage.findById(any())).thenReturn(Optional.of(booking));
-        when(bookingStorage.save(any())).thenReturn(booking);
+        when(bookingStorage.compareAndSetStatus(anyLong(), any(), any())).thenReturn(1);
 
         BookingDto expectedBooking = bookingService.updateStatus(user.getId(), booking.getId(), true);
 
         Assertions.assertEquals(expectedBooking.getStatus(), Status.APPROVED);
-        verify(bookingStorage, times(1)).save(any());
+        verify(bookingStorage, times(1)).compareAndSetStatus(booking.getId(), Status.WAITING, Status.APPROVED);
+        verify(bookingWindows, times(1)).approved(booking);
     }
 
     @Test
@@ -221,12 +236,38 @@ public class BookingServiceTest {
 
         when(userService.findById(anyLong())).thenReturn(user);
         when(bookingStorage.findById(any())).thenReturn(Optional.of(booking));
-        when(bookingStorage.save(any())).thenReturn(booking);
+        when(bookingStorage.compareAndSetStatus(anyLong(), any(), any())).thenReturn(1);
+        ItemBookingWindow window = new ItemBookingWindow(item.getId());
+        when(bookingWindows.lock(item.getId())).thenReturn(window);
 
         BookingDto expectedBooking = bookingService.updateStatus(user.getId(), booking.getId(), false);
 
         Assertions.assertEquals(expectedBooking.getStatus(), Status.REJECTED);
-        verify(bookingStorage, times(1)).save(any());
+        verify(bookingStorage, times(1)).compareAndSetStatus(booking.getId(), Status.WAITING, Status.REJECTED);
+        verify(bookingIntervalIndex, times(1)).release(window, booking);
+        verify(bookingWindows, never()).approved(any());
+    }
+
+    @Test
+    void updateStatusLostRaceTest() {
+        User user = new User(0L, "Ivan", "ivan@mail.com");
+        Item item = new Item(0L, "table", "Ivan's table", true, user, null);
+        NewBookingDto newBookingDto = new NewBookingDto(
+                0L,
+                item.getId(),
+                LocalDateTime.parse("2024-01-01T12:00:00"),
+                LocalDateTime.parse("2024-01-01T13:00:00")
+        );
+
+        Booking booking = BookingMapper.toBooking(newBookingDto, user, item);
+
+        when(userService.findById(anyLong())).thenReturn(user);
+        when(bookingStorage.findById(any())).thenReturn(Optional.of(booking));
+        when(bookingStorage.compareAndSetStatus(anyLong(), any(), any())).thenReturn(0);
+
+        Assertions.assertThrows(NotAvailableException.class,
+                () -> bookingService.updateStatus(user.getId(), booking.getId(), false));
+        verify(bookingIntervalIndex, times(0)).release(any(), any());
     }
 
     @Test
@@ -236,7 +277,7 @@ public class BookingServiceTest {
         bookingService.getByBookerId(0, "ALL", 0, 25);
 
         verify(bookingStorage, times(1))
-                .findByBookerIdOrderByStartDesc(0, PageRequest.of(0, 25, Sort.Direction.DESC, "start"));
+                .findByBookerIdOrderByStartDesc(0, OffsetPageRequest.ofOffset(0, 25, Sort.by(Sort.Direction.DESC, "start", "id")));
         verifyNoMoreInteractions(bookingStorage);
     }
 
@@ -326,7 +367,7 @@ public class BookingServiceTest {
         bookingService.getByOwnerId(0L, "ALL", 0, 25);
 
         verify(bookingStorage, times(1))
-                .findByItemUserOrderByStartDesc(user, PageRequest.of(0, 25, Sort.Direction.DESC, "start"));
+                .findByItemUserOrderByStartDesc(user, OffsetPageRequest.ofOffset(0, 25, Sort.by(Sort.Direction.DESC, "start", "id")));
         verifyNoMoreInteractions(bookingStorage);
     }
 
@@ -405,4 +446,52 @@ public class BookingServiceTest {
                 );
         verifyNoMoreInteractions(bookingStorage);
     }
+
+    @Test
+    void getByBookerIdWithCursorTest() {
+        LocalDateTime start = LocalDateTime.parse("2023-01-01T12:00:00");
+        when(bookingStorage.seekByBookerId(anyLong(), any(), anyLong(), any()))
+                .thenReturn(new SliceImpl<>(Collections.emptyList()));
+
+        bookingService.getByBookerId(0, "ALL", Cursor.of(start, 5L), 25);
+
+        verify(bookingStorage, times(1)).seekByBookerId(0, start, 5L, PageRequest.of(0, 25));
+        verifyNoMoreInteractions(bookingStorage);
+    }
+
+    @Test
+    void getByOwnerIdWithCursorTest() {
+        User user = new User(0L, "Ivan", "ivan@mail.com");
+        LocalDateTime start = LocalDateTime.parse("2023-01-01T12:00:00");
+
+        when(userService.findById(anyLong())).thenReturn(user);
+        when(bookingStorage.seekByItemUserAndStatus(any(), any(), any(), anyLong(), any()))
+                .thenReturn(new SliceImpl<>(Collections.emptyList()));
+
+        bookingService.getByOwnerId(0, "WAITING", Cursor.of(start, 5L), 25);
+
+        verify(bookingStorage, times(1))
+                .seekByItemUserAndStatus(user, Status.WAITING, start, 5L, PageRequest.of(0, 25));
+        verifyNoMoreInteractions(bookingStorage);
+    }
+
+    @Test
+    void countByOwnerIdTest() {
+        User user = new User(0L, "Ivan", "ivan@mail.com");
+
+        when(userService.findById(anyLong())).thenReturn(user);
+        when(bookingStorage.countByItemUserAndStatus(any(), any())).thenReturn(3L);
+
+        Assertions.assertEquals(3L, bookingService.countByOwnerId(0, "WAITING"));
+
+        verify(bookingStorage, times(1)).countByItemUserAndStatus(user, Status.WAITING);
+        verifyNoMoreInteractions(bookingStorage);
+    }
+
+    @Test
+    void getByBookerIdWithUnknownStateTest() {
+        Assertions.assertThrows(NotAvailableException.class,
+                () -> bookingService.getByBookerId(0, "UNKNOWN", Cursor.of(LocalDateTime.now(), 0L), 25));
+        verifyNoInteractions(bookingStorage);
+    }
 }
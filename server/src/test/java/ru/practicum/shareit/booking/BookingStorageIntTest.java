@@ -6,11 +6,15 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
-import org.springframework.data.domain.Page;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import ru.practicum.shareit.cache.EntityCacheConfig;
+import ru.practicum.shareit.cache.EntityCacheProperties;
 import ru.practicum.shareit.booking.storage.BookingStorage;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemSearchIndex;
 import ru.practicum.shareit.user.User;
 
 import java.time.LocalDateTime;
@@ -19,6 +23,7 @@ import java.util.List;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 
 @DataJpaTest
+@Import({ItemSearchIndex.class, EntityCacheConfig.class, EntityCacheProperties.class})
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 public class BookingStorageIntTest {
     @Autowired
@@ -66,7 +71,7 @@ public class BookingStorageIntTest {
         em.persist(booking2);
         em.persist(booking3);
 
-        Page<Booking> result = bookingStorage.findByBookerIdOrderByStartDesc(
+        Slice<Booking> result = bookingStorage.findByBookerIdOrderByStartDesc(
                 user1.getId(),
                 PageRequest.of(0, 20, Sort.Direction.DESC, "start")
         );
@@ -113,7 +118,7 @@ public class BookingStorageIntTest {
         em.persist(booking2);
         em.persist(booking3);
 
-        Page<Booking> result = bookingStorage.findByBookerIdAndStartBeforeAndEndAfterOrderByStartDesc(
+        Slice<Booking> result = bookingStorage.findByBookerIdAndStartBeforeAndEndAfterOrderByStartDesc(
                 user1.getId(),
                 LocalDateTime.parse("2022-06-01T12:10:00"),
                 LocalDateTime.parse("2022-06-01T12:15:00"),
@@ -162,7 +167,7 @@ public class BookingStorageIntTest {
         em.persist(booking2);
         em.persist(booking3);
 
-        Page<Booking> result = bookingStorage.findByBookerIdAndEndBeforeOrderByStartDesc(
+        Slice<Booking> result = bookingStorage.findByBookerIdAndEndBeforeOrderByStartDesc(
                 user1.getId(),
                 LocalDateTime.parse("2022-06-20T12:10:00"),
                 PageRequest.of(0, 20, Sort.Direction.DESC, "start")
@@ -210,7 +215,7 @@ public class BookingStorageIntTest {
         em.persist(booking2);
         em.persist(booking3);
 
-        Page<Booking> result = bookingStorage.findByBookerIdAndStartAfterOrderByStartDesc(
+        Slice<Booking> result = bookingStorage.findByBookerIdAndStartAfterOrderByStartDesc(
                 user1.getId(),
                 LocalDateTime.parse("2022-06-20T12:10:00"),
                 PageRequest.of(0, 20, Sort.Direction.DESC, "start")
@@ -259,7 +264,7 @@ public class BookingStorageIntTest {
         em.persist(booking2);
         em.persist(booking3);
 
-        Page<Booking> result = bookingStorage.findByBookerIdAndStatusOrderByStartDesc(
+        Slice<Booking> result = bookingStorage.findByBookerIdAndStatusOrderByStartDesc(
                 user1.getId(),
                 Status.REJECTED,
                 PageRequest.of(0, 20, Sort.Direction.DESC, "start")
@@ -307,7 +312,7 @@ public class BookingStorageIntTest {
         em.persist(booking2);
         em.persist(booking3);
 
-        Page<Booking> result = bookingStorage.findByItemUserOrderByStartDesc(
+        Slice<Booking> result = bookingStorage.findByItemUserOrderByStartDesc(
                 user2,
                 PageRequest.of(0, 20, Sort.Direction.DESC, "start")
         );
@@ -354,7 +359,7 @@ public class BookingStorageIntTest {
         em.persist(booking2);
         em.persist(booking3);
 
-        Page<Booking> result = bookingStorage.findByItemUserAndStartBeforeAndEndAfterOrderByStartDesc(
+        Slice<Booking> result = bookingStorage.findByItemUserAndStartBeforeAndEndAfterOrderByStartDesc(
                 user2,
                 LocalDateTime.parse("2022-06-01T12:10:00"),
                 LocalDateTime.parse("2022-06-01T12:15:00"),
@@ -403,7 +408,7 @@ public class BookingStorageIntTest {
         em.persist(booking2);
         em.persist(booking3);
 
-        Page<Booking> result = bookingStorage.findByItemUserAndEndBeforeOrderByStartDesc(
+        Slice<Booking> result = bookingStorage.findByItemUserAndEndBeforeOrderByStartDesc(
                 user2,
                 LocalDateTime.parse("2022-06-20T12:10:00"),
                 PageRequest.of(0, 20, Sort.Direction.DESC, "start")
@@ -451,7 +456,7 @@ public class BookingStorageIntTest {
         em.persist(booking2);
         em.persist(booking3);
 
-        Page<Booking> result = bookingStorage.findByItemUserAndStartAfterOrderByStartDesc(
+        Slice<Booking> result = bookingStorage.findByItemUserAndStartAfterOrderByStartDesc(
                 user2,
                 LocalDateTime.parse("2022-06-20T12:10:00"),
                 PageRequest.of(0, 20, Sort.Direction.DESC, "start")
@@ -499,7 +504,7 @@ public class BookingStorageIntTest {
         em.persist(booking2);
         em.persist(booking3);
 
-        Page<Booking> result = bookingStorage.findByItemUserAndStatusOrderByStartDesc(
+        Slice<Booking> result = bookingStorage.findByItemUserAndStatusOrderByStartDesc(
                 user1,
                 Status.CANCELED,
                 PageRequest.of(0, 20, Sort.Direction.DESC, "start")
@@ -513,7 +518,7 @@ public class BookingStorageIntTest {
     }
 
     @Test
-    void findByItemAndItemUserAndStatusOrderByStartAscTest() {
+    void existsByItemAndBookerAndStatusAndEndBeforeTest() {
         User user1 = new User(null, "Ivan", "ivan@mail.com");
         User user2 = new User(null, "Petr", "petr@mail.com");
         em.persist(user1);
@@ -541,27 +546,25 @@ public class BookingStorageIntTest {
                 LocalDateTime.parse("2022-06-01T13:00:00"),
                 item1,
                 user2,
-                Status.APPROVED
+                Status.WAITING
         );
         em.persist(booking1);
         em.persist(booking2);
         em.persist(booking3);
 
-        List<Booking> result = bookingStorage.findByItemAndItemUserAndStatusOrderByStartAsc(
+        Boolean result = bookingStorage.existsByItemAndBookerAndStatusAndEndBefore(
                 item1,
-                user1,
-                Status.CANCELED
+                user2,
+                Status.WAITING,
+                LocalDateTime.parse("2023-01-01T12:00:00")
         );
 
         assertThat(result)
-                .asList()
-                .hasSize(1)
-                .containsAll(List.of(booking1))
-                .first().isEqualTo(booking1);
+                .isEqualTo(true);
     }
 
     @Test
-    void existsByItemAndBookerAndStatusAndEndBeforeTest() {
+    void findLastAndNextByItemIdsTest() {
         User user1 = new User(null, "Ivan", "ivan@mail.com");
         User user2 = new User(null, "Petr", "petr@mail.com");
         em.persist(user1);
@@ -571,38 +574,116 @@ public class BookingStorageIntTest {
         em.persist(item1);
         em.persist(item2);
         Booking booking1 = new Booking(
-                LocalDateTime.parse("2023-01-01T12:00:00"),
-                LocalDateTime.parse("2023-01-01T13:00:00"),
+                LocalDateTime.parse("2022-01-01T12:00:00"),
+                LocalDateTime.parse("2022-01-01T13:00:00"),
                 item1,
-                user1,
-                Status.CANCELED
+                user2,
+                Status.APPROVED
         );
         Booking booking2 = new Booking(
                 LocalDateTime.parse("2022-06-01T12:00:00"),
                 LocalDateTime.parse("2022-06-01T13:00:00"),
+                item1,
+                user2,
+                Status.APPROVED
+        );
+        Booking booking3 = new Booking(
+                LocalDateTime.parse("2023-06-01T12:00:00"),
+                LocalDateTime.parse("2023-06-01T13:00:00"),
+                item1,
+                user2,
+                Status.APPROVED
+        );
+        Booking booking4 = new Booking(
+                LocalDateTime.parse("2024-06-01T12:00:00"),
+                LocalDateTime.parse("2024-06-01T13:00:00"),
+                item1,
+                user2,
+                Status.APPROVED
+        );
+        Booking booking5 = new Booking(
+                LocalDateTime.parse("2023-02-01T12:00:00"),
+                LocalDateTime.parse("2023-02-01T13:00:00"),
                 item2,
-                user1,
+                user2,
                 Status.REJECTED
         );
-        Booking booking3 = new Booking(
+        Booking booking6 = new Booking(
+                LocalDateTime.parse("2023-03-01T12:00:00"),
+                LocalDateTime.parse("2023-03-01T13:00:00"),
+                item2,
+                user2,
+                Status.APPROVED
+        );
+        em.persist(booking1);
+        em.persist(booking2);
+        em.persist(booking3);
+        em.persist(booking4);
+        em.persist(booking5);
+        em.persist(booking6);
+
+        List<Booking> result = bookingStorage.findLastAndNextByItemIds(
+                List.of(item1.getId(), item2.getId()),
+                Status.APPROVED,
+                LocalDateTime.parse("2023-01-01T12:00:00")
+        );
+
+        assertThat(result)
+                .asList()
+                .hasSize(3)
+                .containsExactly(booking2, booking3, booking6);
+    }
+
+    @Test
+    void seekByItemUserTest() {
+        User user1 = new User(null, "Ivan", "ivan@mail.com");
+        User user2 = new User(null, "Petr", "petr@mail.com");
+        em.persist(user1);
+        em.persist(user2);
+        Item item1 = new Item(null, "table", "Ivan's table", true, user1);
+        em.persist(item1);
+        Booking booking1 = new Booking(
+                LocalDateTime.parse("2023-01-01T12:00:00"),
+                LocalDateTime.parse("2023-01-01T13:00:00"),
+                item1,
+                user2,
+                Status.APPROVED
+        );
+        Booking booking2 = new Booking(
                 LocalDateTime.parse("2022-06-01T12:00:00"),
                 LocalDateTime.parse("2022-06-01T13:00:00"),
                 item1,
                 user2,
-                Status.WAITING
+                Status.APPROVED
+        );
+        Booking booking3 = new Booking(
+                LocalDateTime.parse("2022-06-01T12:00:00"),
+                LocalDateTime.parse("2022-06-01T14:00:00"),
+                item1,
+                user2,
+                Status.APPROVED
+        );
+        Booking booking4 = new Booking(
+                LocalDateTime.parse("2022-01-01T12:00:00"),
+                LocalDateTime.parse("2022-01-01T13:00:00"),
+                item1,
+                user2,
+                Status.APPROVED
         );
         em.persist(booking1);
         em.persist(booking2);
         em.persist(booking3);
+        em.persist(booking4);
 
-        Boolean result = bookingStorage.existsByItemAndBookerAndStatusAndEndBefore(
-                item1,
-                user2,
-                Status.WAITING,
-                LocalDateTime.parse("2023-01-01T12:00:00")
+        Slice<Booking> result = bookingStorage.seekByItemUser(
+                user1,
+                booking3.getStart(),
+                booking3.getId(),
+                PageRequest.of(0, 20)
         );
 
-        assertThat(result)
-                .isEqualTo(true);
+        assertThat(result.getContent())
+                .asList()
+                .containsExactly(booking2, booking4);
     }
 }
@@ -0,0 +1,113 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.booking.dto.NewBookingDto;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.booking.service.ItemBookingWindows;
+import ru.practicum.shareit.item.dto.ItemBookingDto;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Approves bookings through the service and checks the item's window, then moves the next booking into the past
+ * directly in the database, the way time passing would, and checks that reads and the roll-forward job catch up.
+ */
+@SpringBootTest
+@AutoConfigureTestDatabase
+@DirtiesContext
+public class ItemBookingWindowsTest {
+    @Autowired
+    UserService userService;
+    @Autowired
+    ItemService itemService;
+    @Autowired
+    BookingService bookingService;
+    @Autowired
+    ItemBookingWindows bookingWindows;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    private long owner;
+    private long booker;
+    private long item;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = UUID.randomUUID().toString();
+        owner = userService.add(new UserDto(null, "owner", "owner-" + suffix + "@mail.com")).getId();
+        booker = userService.add(new UserDto(null, "booker", "booker-" + suffix + "@mail.com")).getId();
+        item = itemService.add(owner, new ItemDto(0L, "drill", "cordless drill", true, null)).getId();
+    }
+
+    @Test
+    void approvalsUpdateWindowTest() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        long past = book(now.minusDays(4), now.minusDays(3), true);
+        long next = book(now.plusDays(3), now.plusDays(4), true);
+        book(now.plusDays(1), now.plusDays(2), false);
+
+        ItemBookingDto owned = itemService.get(owner, item);
+
+        assertThat(owned.getLastBooking().getId()).isEqualTo(past);
+        assertThat(owned.getNextBooking().getId()).isEqualTo(next);
+        assertThat(itemService.get(booker, item).getNextBooking()).isNull();
+
+        long sooner = book(now.plusDays(1).plusHours(1), now.plusDays(1).plusHours(2), true);
+
+        assertThat(itemService.get(owner, item).getNextBooking().getId()).isEqualTo(sooner);
+        assertThat(itemService.findByUserId(owner, 0, 10).getContent().get(0).getNextBooking().getId())
+                .isEqualTo(sooner);
+    }
+
+    @Test
+    void startedNextBookingRollsForwardTest() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        long past = book(now.minusDays(4), now.minusDays(3), true);
+        long next = book(now.plusDays(1), now.plusDays(2), true);
+        long later = book(now.plusDays(3), now.plusDays(4), true);
+
+        jdbcTemplate.update("update bookings set start_date = ? where id = ?",
+                Timestamp.valueOf(now.minusHours(1)), next);
+        jdbcTemplate.update("update item_booking_windows set roll_at = ? where item_id = ?",
+                Timestamp.valueOf(now.minusHours(1)), item);
+
+        ItemBookingDto beforeRoll = itemService.get(owner, item);
+
+        assertThat(beforeRoll.getLastBooking().getId()).isEqualTo(next);
+        assertThat(beforeRoll.getNextBooking().getId()).isEqualTo(later);
+        assertThat(nextBookingId()).isEqualTo(next);
+
+        bookingWindows.rollForward();
+
+        assertThat(nextBookingId()).isEqualTo(later);
+        ItemBookingDto afterRoll = itemService.get(owner, item);
+        assertThat(afterRoll.getLastBooking().getId()).isEqualTo(next).isNotEqualTo(past);
+        assertThat(afterRoll.getNextBooking().getId()).isEqualTo(later);
+    }
+
+    private long book(LocalDateTime start, LocalDateTime end, boolean approved) {
+        long booking = bookingService.add(booker, new NewBookingDto(0L, item, start, end)).getId();
+        bookingService.updateStatus(owner, booking, approved);
+        return booking;
+    }
+
+    private Long nextBookingId() {
+        return jdbcTemplate.queryForObject("select next_booking_id from item_booking_windows where item_id = ?",
+                Long.class, item);
+    }
+}
@@ -0,0 +1,49 @@
+package ru.practicum.shareit.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs with a users region of two entries and checks that the entries it drops show up as evictions.
+ */
+@SpringBootTest(properties = "shareit.cache.entities.regions.users.max-size=2")
+@AutoConfigureTestDatabase
+@DirtiesContext
+public class EntityCacheEvictionTest {
+    @Autowired
+    UserService userService;
+    @Autowired
+    MeterRegistry registry;
+
+    @Test
+    void sizeEvictionsAreExportedTest() throws InterruptedException {
+        List<Long> users = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            users.add(userService.add(new UserDto(null, "User " + i, UUID.randomUUID() + "@mail.com")).getId());
+        }
+        users.forEach(userService::findById);
+
+        // The region evicts on a background thread
+        for (int attempt = 0; attempt < 50 && evictions() == 0; attempt++) {
+            Thread.sleep(100);
+        }
+
+        assertThat(evictions()).isGreaterThan(0);
+    }
+
+    private double evictions() {
+        return registry.get("cache.evictions").tag("cache", "users").functionCounter().count();
+    }
+}
@@ -0,0 +1,113 @@
+package ru.practicum.shareit.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.StatementCounter;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = StatementCounter.PROPERTY)
+@AutoConfigureTestDatabase
+@DirtiesContext
+public class EntityCacheTest {
+    @Autowired
+    ItemService itemService;
+    @Autowired
+    UserService userService;
+    @Autowired
+    RecordingBus bus;
+    @Autowired
+    MeterRegistry registry;
+
+    private long owner;
+    private long item;
+
+    @BeforeEach
+    void setUp() {
+        owner = userService.add(new UserDto(null, "Ivan", UUID.randomUUID() + "@mail.com")).getId();
+        item = itemService.add(owner, new ItemDto(0L, "drill", "cordless drill", true, null)).getId();
+        bus.published.clear();
+    }
+
+    @Test
+    void secondLookupIsServedFromCacheTest() {
+        itemService.findById(item);
+
+        assertThat(StatementCounter.record(() -> itemService.findById(item))).isEmpty();
+        assertThat(registry.get("hibernate.second.level.cache.hit.ratio").tag("region", "items").gauge().value())
+                .isGreaterThan(0);
+    }
+
+    @Test
+    void userLookupIsServedFromCacheAndSeesUpdatesTest() {
+        userService.findById(owner);
+
+        assertThat(StatementCounter.record(() -> userService.findById(owner))).isEmpty();
+
+        userService.update(new UserDto(owner, "Petr", null));
+
+        assertThat(userService.get(owner).getName()).isEqualTo("Petr");
+        assertThat(bus.published).containsExactly(new EntityInvalidation(User.class.getName(), owner));
+    }
+
+    @Test
+    void updatePublishesInvalidationTest() {
+        itemService.update(owner, new ItemDto(item, "hammer drill", null, null, null));
+
+        assertThat(bus.published).containsExactly(new EntityInvalidation(Item.class.getName(), item));
+    }
+
+    @Test
+    void deliveredInvalidationEvictsEntityTest() {
+        itemService.findById(item);
+
+        bus.deliver(new EntityInvalidation(Item.class.getName(), item));
+
+        assertThat(StatementCounter.record(() -> itemService.findById(item))).hasSize(1);
+    }
+
+    @TestConfiguration
+    static class BusConfig {
+        @Bean
+        RecordingBus recordingBus() {
+            return new RecordingBus();
+        }
+    }
+
+    static class RecordingBus implements CacheInvalidationBus {
+        private final List<EntityInvalidation> published = new CopyOnWriteArrayList<>();
+        private final List<Consumer<EntityInvalidation>> listeners = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void publish(EntityInvalidation invalidation) {
+            published.add(invalidation);
+        }
+
+        @Override
+        public void subscribe(Consumer<EntityInvalidation> listener) {
+            listeners.add(listener);
+        }
+
+        void deliver(EntityInvalidation invalidation) {
+            listeners.forEach(listener -> listener.accept(invalidation));
+        }
+    }
+}
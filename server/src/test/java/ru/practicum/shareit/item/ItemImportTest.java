@@ -0,0 +1,65 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.item.dto.ItemImportDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.item.storage.ItemStorage;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.StreamSupport;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+@DirtiesContext
+public class ItemImportTest {
+    @Autowired
+    ItemService itemService;
+    @Autowired
+    UserService userService;
+    @SpyBean
+    ItemStorage itemStorage;
+
+    @Test
+    void failedChunkIsReportedAsFailedTest() {
+        long userId = userService.add(new UserDto(null, "Ivan", "ivan@email.com")).getId();
+        doThrow(new DataIntegrityViolationException("Rejected by the database"))
+                .when(itemStorage).saveAll(argThat(items -> items != null
+                        && StreamSupport.stream(items.spliterator(), false)
+                        .anyMatch(item -> item.getName().equals("item 700"))));
+        StringBuilder rows = new StringBuilder();
+        for (int i = 1; i <= 1200; i++) {
+            rows.append("{\"name\": \"").append(i == 600 ? "" : "item " + i)
+                    .append("\", \"description\": \"bulk\", \"available\": true}\n");
+        }
+
+        ItemImportDto result = itemService.importItems(userId,
+                new ByteArrayInputStream(rows.toString().getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(result.getTotal(), equalTo(1200));
+        assertThat(result.getCreated(), equalTo(700));
+        assertThat(result.getFailed(), equalTo(500));
+        assertThat(result.getErrors().get(0), allOf(
+                hasProperty("row", equalTo(501)),
+                hasProperty("message", equalTo("Rows 501-1000 could not be saved"))
+        ));
+        assertThat(result.getErrors().get(99), allOf(
+                hasProperty("row", equalTo(600)),
+                hasProperty("message", equalTo("Item with empty name"))
+        ));
+        assertThat(itemStorage.count(), equalTo(700L));
+    }
+}
@@ -0,0 +1,99 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.cache.CacheInvalidationBus;
+import ru.practicum.shareit.cache.EntityInvalidation;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+@DirtiesContext
+public class ItemSearchIndexSyncTest {
+    private static final long REMOTE_ITEM_ID = 1_000_000;
+
+    @Autowired
+    ItemService itemService;
+    @Autowired
+    UserService userService;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    RecordingBus bus;
+
+    @Test
+    void addedItemIsPublishedTest() {
+        long userId = userService.add(new UserDto(null, "Ivan", "ivan@mail.com")).getId();
+
+        ItemDto item = itemService.add(userId, new ItemDto(0L, "drill", "Cordless drill", true, null));
+
+        assertThat(bus.published).contains(new EntityInvalidation(Item.class.getName(), item.getId()));
+    }
+
+    @Test
+    void itemChangedOnAnotherInstanceIsReindexedTest() {
+        long userId = userService.add(new UserDto(null, "Petr", "petr@mail.com")).getId();
+        EntityInvalidation invalidation = new EntityInvalidation(Item.class.getName(), REMOTE_ITEM_ID);
+
+        // Written straight to the database, as another instance would, so this one does not index it itself
+        jdbcTemplate.update("insert into items (id, name, description, available, user_id) values (?, ?, ?, ?, ?)",
+                REMOTE_ITEM_ID, "saw", "Circular saw", true, userId);
+        assertThat(itemService.search("saw", 0, 10).getContent()).isEmpty();
+        bus.deliver(invalidation);
+        assertThat(itemService.search("saw", 0, 10).getContent()).extracting(ItemDto::getId)
+                .containsExactly(REMOTE_ITEM_ID);
+
+        jdbcTemplate.update("update items set available = false where id = ?", REMOTE_ITEM_ID);
+        bus.deliver(invalidation);
+        assertThat(itemService.search("saw", 0, 10).getTotal()).isZero();
+
+        jdbcTemplate.update("update items set available = true where id = ?", REMOTE_ITEM_ID);
+        bus.deliver(invalidation);
+        jdbcTemplate.update("delete from items where id = ?", REMOTE_ITEM_ID);
+        bus.deliver(invalidation);
+        assertThat(itemService.search("saw", 0, 10).getTotal()).isZero();
+    }
+
+    @TestConfiguration
+    static class BusConfig {
+        @Bean
+        RecordingBus recordingBus() {
+            return new RecordingBus();
+        }
+    }
+
+    static class RecordingBus implements CacheInvalidationBus {
+        private final List<EntityInvalidation> published = new CopyOnWriteArrayList<>();
+        private final List<Consumer<EntityInvalidation>> listeners = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void publish(EntityInvalidation invalidation) {
+            published.add(invalidation);
+        }
+
+        @Override
+        public void subscribe(Consumer<EntityInvalidation> listener) {
+            listeners.add(listener);
+        }
+
+        void deliver(EntityInvalidation invalidation) {
+            listeners.forEach(listener -> listener.accept(invalidation));
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemSearchIndex;
+import ru.practicum.shareit.user.User;
+
+import java.util.List;
+
+public class ItemSearchIndexTest {
+    private ItemSearchIndex searchIndex;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        searchIndex = new ItemSearchIndex();
+        user = new User(0L, "Ivan", "ivan@mail.com");
+    }
+
+    @Test
+    void searchRanksNameMatchesFirstTest() {
+        searchIndex.index(new Item(1L, "table", "Ivan's pencil holder", true, user));
+        searchIndex.index(new Item(2L, "pencil", "Ivan's pencil", true, user));
+        searchIndex.index(new Item(3L, "bag", "Boris's bag", true, user));
+
+        Assertions.assertEquals(List.of(2L, 1L), searchIndex.search("PENCIL"));
+    }
+
+    @Test
+    void searchMatchesPrefixAndAllTermsTest() {
+        searchIndex.index(new Item(1L, "Дрель+", "Аккумуляторная дрель", true, user));
+        searchIndex.index(new Item(2L, "Отвертка", "Аккумуляторная отвертка", true, user));
+
+        Assertions.assertEquals(List.of(1L), searchIndex.search("дрель"));
+        Assertions.assertEquals(List.of(1L, 2L), searchIndex.search("аккумулятор"));
+        Assertions.assertEquals(List.of(2L), searchIndex.search("аккумуляторная отвертка"));
+        Assertions.assertTrue(searchIndex.search("пила").isEmpty());
+    }
+
+    @Test
+    void searchSkipsUnavailableAndRemovedItemsTest() {
+        searchIndex.index(new Item(1L, "table", "Ivan's table", true, user));
+        searchIndex.index(new Item(2L, "table", "Petr's table", true, user));
+
+        searchIndex.index(new Item(1L, "table", "Ivan's table", false, user));
+        Assertions.assertEquals(List.of(2L), searchIndex.search("table"));
+
+        searchIndex.delete(2L);
+        Assertions.assertTrue(searchIndex.search("table").isEmpty());
+    }
+
+    @Test
+    void rebuildSwapsInCompleteIndexTest() {
+        searchIndex.index(new Item(1L, "table", "Ivan's table", true, user));
+
+        ItemSearchIndex.Rebuild rebuild = searchIndex.startRebuild();
+        rebuild.index(new Item(2L, "table", "Petr's table", true, user));
+        Assertions.assertEquals(List.of(1L), searchIndex.search("table"), "the old index serves until the swap");
+
+        Assertions.assertTrue(rebuild.finish());
+        Assertions.assertEquals(List.of(2L), searchIndex.search("table"));
+    }
+
+    @Test
+    void rebuildReplaysChangesMadeMeanwhileTest() {
+        ItemSearchIndex.Rebuild rebuild = searchIndex.startRebuild();
+        rebuild.index(new Item(1L, "table", "Ivan's table", true, user));
+        rebuild.index(new Item(2L, "table", "Petr's table", true, user));
+
+        searchIndex.index(new Item(1L, "chair", "Ivan's chair", true, user));
+        searchIndex.delete(2L);
+        searchIndex.index(new Item(3L, "table", "Boris's table", true, user));
+        rebuild.finish();
+
+        Assertions.assertEquals(List.of(3L), searchIndex.search("table"));
+        Assertions.assertEquals(List.of(1L), searchIndex.search("chair"));
+        Assertions.assertEquals(2, searchIndex.size());
+    }
+
+    @Test
+    void abortedOrSupersededRebuildIsDroppedTest() {
+        searchIndex.index(new Item(1L, "table", "Ivan's table", true, user));
+
+        ItemSearchIndex.Rebuild aborted = searchIndex.startRebuild();
+        aborted.abort();
+        ItemSearchIndex.Rebuild superseded = searchIndex.startRebuild();
+        searchIndex.startRebuild();
+
+        Assertions.assertFalse(aborted.finish());
+        Assertions.assertFalse(superseded.finish());
+        Assertions.assertEquals(List.of(1L), searchIndex.search("table"));
+    }
+}
@@ -5,20 +5,28 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.practicum.shareit.booking.Booking;
 import ru.practicum.shareit.booking.Status;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemBookingDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemImportDto;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.service.ItemServiceImpl;
+import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.service.UserServiceImpl;
 
 import javax.persistence.EntityManager;
 import javax.persistence.TypedQuery;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -33,6 +41,7 @@ public class ItemServiceIntTest {
     public final ItemServiceImpl itemService;
     public final UserServiceImpl userService;
     private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
 
     @Test
     void addTest() {
@@ -85,7 +94,7 @@ public class ItemServiceIntTest {
 
         List<Item> items = List.of(item1, item2);
 
-        List<ItemBookingDto> ivansItems = itemService.findByUserId(user1.getId(), 0, 20);
+        List<ItemBookingDto> ivansItems = itemService.findByUserId(user1.getId(), 0, 20).getContent();
 
         assertThat(ivansItems, hasSize(2));
         for (Item item : items) {
@@ -98,28 +107,39 @@ public class ItemServiceIntTest {
     }
 
     @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DirtiesContext
     void searchTest() {
-        User user1 = new User(null, "Ivan", "ivan@email.com");
-        em.persist(user1);
-        Item item1 = new Item(null, "table", "Ivan's table", true, user1);
-        em.persist(item1);
-        Item item2 = new Item(null, "pencil", "Ivan's pencil", true, user1);
-        em.persist(item2);
+        long userId = userService.add(new UserDto(null, "Ivan", "ivan@email.com")).getId();
+        itemService.add(userId, new ItemDto(0L, "table", "Ivan's table", true, null));
+        ItemDto pencil = itemService.add(userId, new ItemDto(0L, "pencil", "Ivan's pencil", true, null));
 
-        List<Item> items = List.of(item2);
-
-        List<ItemDto> foundItems = itemService.search("pencil", 0, 20);
+        List<ItemDto> foundItems = itemService.search("pencil", 0, 20).getContent();
 
         assertThat(foundItems, hasSize(1));
-        for (Item item : items) {
-            assertThat(foundItems, hasItem((allOf(
-                    hasProperty("id", notNullValue()),
-                    hasProperty("name", equalTo(item.getName())),
-                    hasProperty("description", equalTo(item.getDescription()))
-            ))));
-        }
+        assertThat(foundItems, hasItem((allOf(
+                hasProperty("id", equalTo(pencil.getId())),
+                hasProperty("name", equalTo(pencil.getName())),
+                hasProperty("description", equalTo(pencil.getDescription()))
+        ))));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DirtiesContext
+    void searchSkipsRolledBackItemsTest() {
+        long userId = userService.add(new UserDto(null, "Ivan", "ivan@email.com")).getId();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            itemService.add(userId, new ItemDto(0L, "lamp", "Ivan's lamp", true, null));
+            assertThat(itemService.search("lamp", 0, 20).getContent(), empty());
+            status.setRollbackOnly();
+        });
+
+        assertThat(itemService.search("lamp", 0, 20).getContent(), empty());
     }
 
+
     @Test
     void addCommentTest() {
         User user = new User(null, "Ivan", "ivan@email.com");
@@ -151,4 +171,62 @@ public class ItemServiceIntTest {
         assertThat(fetchedComment.getText(), equalTo(commentDto.getText()));
         assertThat(fetchedComment.getAuthor().getName(), equalTo(commentDto.getAuthorName()));
     }
+
+    @Test
+    void importJsonArrayTest() {
+        User user = new User(null, "Ivan", "ivan@email.com");
+        em.persist(user);
+        ItemRequest request = new ItemRequest(null, "Need a table", user, LocalDateTime.now());
+        em.persist(request);
+        String rows = "[" +
+                "{\"name\": \"table\", \"description\": \"Ivan's table\", \"available\": true, " +
+                "\"requestId\": " + request.getId() + "}," +
+                "{\"name\": \" \", \"description\": \"nameless\", \"available\": true}," +
+                "{\"name\": \"chair\", \"description\": \"Ivan's chair\", \"available\": true, " +
+                "\"requestId\": " + (request.getId() + 1000) + "}," +
+                "{\"name\": \"lamp\", \"description\": \"Ivan's lamp\", \"available\": \"maybe\"}," +
+                "{\"name\": \"pencil\", \"description\": \"Ivan's pencil\", \"available\": false}" +
+                "]";
+
+        ItemImportDto result = itemService.importItems(user.getId(), stream(rows));
+
+        assertThat(result.getTotal(), equalTo(5));
+        assertThat(result.getCreated(), equalTo(2));
+        assertThat(result.getFailed(), equalTo(3));
+        assertThat(result.getErrors(), contains(
+                hasProperty("row", equalTo(2)),
+                hasProperty("row", equalTo(3)),
+                hasProperty("row", equalTo(4))
+        ));
+        List<Item> items = em.createQuery("Select i from Item i where i.user = :user order by i.name", Item.class)
+                .setParameter("user", user)
+                .getResultList();
+        assertThat(items, contains(hasProperty("name", equalTo("pencil")), hasProperty("name", equalTo("table"))));
+        assertThat(items.get(1).getRequest(), equalTo(request));
+    }
+
+    @Test
+    void importNdjsonStopsAtMalformedJsonTest() {
+        User user = new User(null, "Ivan", "ivan@email.com");
+        em.persist(user);
+        StringBuilder rows = new StringBuilder();
+        for (int i = 0; i < 1200; i++) {
+            rows.append("{\"name\": \"item ").append(i)
+                    .append("\", \"description\": \"bulk\", \"available\": true}\n");
+        }
+        rows.append("{\"name\": \"broken\",\n");
+
+        ItemImportDto result = itemService.importItems(user.getId(), stream(rows.toString()));
+
+        assertThat(result.getCreated(), equalTo(1200));
+        assertThat(result.getErrors(), contains(hasProperty("row", equalTo(1201))));
+        Long count = em.createQuery("Select count(i) from Item i where i.user = :user", Long.class)
+                .setParameter("user", user)
+                .getSingleResult();
+        assertThat(count, equalTo(1200L));
+    }
+
+    private static ByteArrayInputStream stream(String rows) {
+        return new ByteArrayInputStream(rows.getBytes(StandardCharsets.UTF_8));
+    }
 }
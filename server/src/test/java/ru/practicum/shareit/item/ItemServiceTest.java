@@ -7,9 +7,11 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.PageImpl;
 import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.ItemBookingWindow;
 import ru.practicum.shareit.booking.Status;
+import ru.practicum.shareit.booking.service.ItemBookingWindows;
 import ru.practicum.shareit.booking.storage.BookingStorage;
 import ru.practicum.shareit.exception.NoSuchEntityException;
 import ru.practicum.shareit.exception.NotAvailableException;
@@ -23,18 +25,23 @@ import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.service.ItemServiceImpl;
 import ru.practicum.shareit.item.storage.CommentStorage;
 import ru.practicum.shareit.item.storage.ItemStorage;
+import ru.practicum.shareit.pagination.CountedSlice;
+import ru.practicum.shareit.pagination.OffsetPageRequest;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.storage.ItemRequestStorage;
 import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.service.UserService;
 
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
@@ -51,6 +58,9 @@ public class ItemServiceTest {
     @Mock
     private BookingStorage bookingStorage;
 
+    @Mock
+    private ItemBookingWindows bookingWindows;
+
     @Mock
     private CommentStorage commentStorage;
 
@@ -86,8 +96,8 @@ public class ItemServiceTest {
         when(userService.findById(anyLong())).thenReturn(user);
         when(itemStorage.findById(anyLong())).thenReturn(Optional.of(item));
         when(commentStorage.findByItemOrderById(any())).thenReturn(Collections.emptyList());
-        when(bookingStorage.findByItemAndItemUserAndStatusOrderByStartAsc(any(), any(), any()))
-                .thenReturn(List.of(lastBooking, nextBooking));
+        when(bookingWindows.find(anyLong()))
+                .thenReturn(Optional.of(new ItemBookingWindow(0L, lastBooking, nextBooking, nextBooking.getStart(), 0L)));
 
         ItemBookingDto itemBookingDto = itemService.get(0L, 0L);
 
@@ -202,12 +212,12 @@ public class ItemServiceTest {
     @Test
     void searchTest() {
         when(itemStorage.search(anyString(), any()))
-                .thenReturn(Page.empty());
+                .thenReturn(new CountedSlice<>(Collections.emptyList(), OffsetPageRequest.ofOffset(0, 25), false, 0));
 
         itemService.search("text", 0, 25);
 
         verify(itemStorage, times(1)).search("text",
-                PageRequest.of(0 / 25, 25));
+                OffsetPageRequest.ofOffset(0, 25));
         verifyNoMoreInteractions(itemStorage);
     }
 
@@ -263,4 +273,55 @@ public class ItemServiceTest {
                 "User with id = 0 already has posted item with id = 0");
         verify(commentStorage, times(0)).save(any(Comment.class));
     }
+
+    @Test
+    void findByUserIdTest() {
+        User user = new User(0L, "Ivan", "ivan@mail.com");
+        User booker = new User(1L, "Petr", "petr@mail.com");
+        Item item1 = new Item(0L, "table", "Ivan's table", true, user, null);
+        Item item2 = new Item(1L, "pencil", "Ivan's pencil", true, user, null);
+        Booking lastBooking = new Booking(
+                0L,
+                LocalDateTime.now().minusHours(2),
+                LocalDateTime.now().minusHours(1),
+                item1,
+                booker,
+                Status.APPROVED
+        );
+        Booking nextBooking = new Booking(
+                1L,
+                LocalDateTime.now().plusHours(1),
+                LocalDateTime.now().plusHours(2),
+                item1,
+                booker,
+                Status.APPROVED
+        );
+        Comment comment = new Comment(0L, "Nice pencil", item2, booker, LocalDateTime.now());
+
+        when(userService.get(anyLong())).thenReturn(UserMapper.toUserDto(user));
+        when(itemStorage.findByUserOrderById(any(), any())).thenReturn(new PageImpl<>(List.of(item1, item2)));
+        when(bookingWindows.find(anyCollection()))
+                .thenReturn(Map.of(0L, new ItemBookingWindow(0L, lastBooking, nextBooking, nextBooking.getStart(), 0L)));
+        when(commentStorage.findByItemIds(any())).thenReturn(List.of(comment));
+
+        List<ItemBookingDto> result = itemService.findByUserId(user.getId(), 0, 25).getContent();
+
+        verify(bookingWindows, times(1)).find(List.of(0L, 1L));
+        verify(commentStorage, times(1)).findByItemIds(List.of(0L, 1L));
+        Assertions.assertEquals(List.of(
+                ItemMapper.toItemBookingDto(item1, lastBooking, nextBooking, Collections.emptyList()),
+                ItemMapper.toItemBookingDto(item2, null, null, List.of(comment))
+        ), result);
+    }
+
+    @Test
+    void findByUserIdWithoutItemsTest() {
+        User user = new User(0L, "Ivan", "ivan@mail.com");
+
+        when(userService.get(anyLong())).thenReturn(UserMapper.toUserDto(user));
+        when(itemStorage.findByUserOrderById(any(), any())).thenReturn(Page.empty());
+
+        Assertions.assertTrue(itemService.findByUserId(user.getId(), 0, 25).isEmpty());
+        verifyNoInteractions(bookingStorage, bookingWindows, commentStorage);
+    }
 }
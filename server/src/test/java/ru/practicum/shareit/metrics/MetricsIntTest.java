@@ -0,0 +1,52 @@
+package ru.practicum.shareit.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureTestDatabase
+public class MetricsIntTest {
+    @Autowired
+    TestRestTemplate rest;
+    @Autowired
+    MeterRegistry registry;
+
+    @Test
+    void endpointAndRepositoryTimersTest() {
+        UserDto user = rest.postForObject("/users",
+                new UserDto(null, "Ivan", UUID.randomUUID() + "@mail.com"), UserDto.class);
+        ResponseEntity<String> missing = rest.getForEntity("/users/{id}", String.class, Long.MAX_VALUE);
+
+        assertThat(user.getId()).isNotNull();
+        assertThat(missing.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+
+        Timer endpoint = registry.get("http.server.requests")
+                .tag(HandlerMethodTagsContributor.HANDLER_TAG, "UserController.add")
+                .timer();
+        assertThat(endpoint.count()).isEqualTo(1);
+        assertThat(endpoint.takeSnapshot().percentileValues()).hasSize(3);
+
+        Timer saved = registry.get("spring.data.repository.invocations")
+                .tags("repository", "UserStorage", "method", "save", "state", "SUCCESS")
+                .timer();
+        assertThat(saved.count()).isGreaterThanOrEqualTo(1);
+        assertThat(saved.takeSnapshot().percentileValues()).hasSize(3);
+
+        assertThat(registry.get("spring.data.repository.invocations")
+                .tags("repository", "UserStorage", "method", "findById")
+                .timers())
+                .isNotEmpty();
+    }
+}
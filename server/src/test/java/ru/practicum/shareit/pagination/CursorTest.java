@@ -0,0 +1,60 @@
+package ru.practicum.shareit.pagination;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.ResponseEntity;
+import ru.practicum.shareit.exception.NotAvailableException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class CursorTest {
+    @Test
+    void encodeDecodeTest() {
+        Cursor cursor = Cursor.of(LocalDateTime.parse("2023-01-01T12:00:00"), 42L);
+        Cursor idCursor = Cursor.of(7L);
+
+        Assertions.assertEquals(cursor, Cursor.decode(cursor.encode()));
+        Assertions.assertEquals(idCursor, Cursor.decode(idCursor.encode()));
+    }
+
+    @Test
+    void decodeInvalidCursorTest() {
+        Assertions.assertThrows(NotAvailableException.class, () -> Cursor.decode("not a cursor"));
+        Assertions.assertThrows(NotAvailableException.class, () -> Cursor.decode(""));
+    }
+
+    @Test
+    void decodeTimestampedTest() {
+        Cursor cursor = Cursor.of(LocalDateTime.parse("2023-01-01T12:00:00"), 42L);
+
+        Assertions.assertEquals(cursor, Cursor.decodeTimestamped(cursor.encode()));
+        Assertions.assertThrows(NotAvailableException.class, () -> Cursor.decodeTimestamped(Cursor.of(7L).encode()));
+    }
+
+    @Test
+    void toResponseTest() {
+        PageRequest page = PageRequest.of(0, 2);
+        ResponseEntity<List<Long>> fullPage = Cursor.toResponse(new SliceImpl<>(List.of(1L, 2L), page, true), null,
+                Cursor::of);
+        ResponseEntity<List<Long>> lastPage = Cursor.toResponse(new SliceImpl<>(List.of(3L, 4L), page, false), 4L,
+                Cursor::of);
+
+        Assertions.assertEquals(Cursor.of(2L).encode(), fullPage.getHeaders().getFirst(Cursor.NEXT_CURSOR_HEADER));
+        Assertions.assertFalse(fullPage.getHeaders().containsKey(Cursor.TOTAL_COUNT_HEADER));
+        Assertions.assertFalse(lastPage.getHeaders().containsKey(Cursor.NEXT_CURSOR_HEADER));
+        Assertions.assertEquals("4", lastPage.getHeaders().getFirst(Cursor.TOTAL_COUNT_HEADER));
+        Assertions.assertEquals(List.of(3L, 4L), lastPage.getBody());
+    }
+
+    @Test
+    void offsetPageRequestTest() {
+        OffsetPageRequest page = OffsetPageRequest.ofOffset(5, 3);
+
+        Assertions.assertEquals(5, page.getOffset());
+        Assertions.assertEquals(3, page.getPageSize());
+        Assertions.assertNotEquals(OffsetPageRequest.ofOffset(3, 3), page);
+    }
+}
@@ -64,7 +64,7 @@ public class ItemRequestServiceIntTest {
                 "Select r from ItemRequest r where r.requestor != :user order by r.created desc", ItemRequest.class);
         List<ItemRequest> result = query.setParameter("user", user2).getResultList();
 
-        List<AnsweredItemRequestDto> requests = requestService.findAllButNotUserId(user2.getId(), 0, 25);
+        List<AnsweredItemRequestDto> requests = requestService.findAllButNotUserId(user2.getId(), 0, 25).getContent();
         assertThat(result, hasSize(2));
         assertThat(result.get(0).getId(), equalTo(requests.get(0).getId()));
         assertThat(result.get(1).getId(), equalTo(requests.get(1).getId()));
@@ -9,6 +9,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import ru.practicum.shareit.exception.NoSuchEntityException;
+import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.storage.ItemStorage;
 import ru.practicum.shareit.request.dto.AnsweredItemRequestDto;
@@ -27,7 +28,7 @@ import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
@@ -96,7 +97,6 @@ public class ItemRequestServiceTest {
     @Test
     void findByUserIdTest() {
         User user = new User(0L, "Ivan", "ivan@mail.com");
-        Item item = new Item(0L, "table", "Ivan's table", true, user, null);
         ItemRequest request1 = new ItemRequest(
                 0L,
                 "table",
@@ -111,11 +111,19 @@ public class ItemRequestServiceTest {
                 LocalDateTime.parse("2024-01-01T12:00:00")
         );
 
+        Item item = new Item(0L, "table", "Ivan's table", true, user, request2);
+
         when(userService.findById(anyLong())).thenReturn(user);
         when(requestStorage.findByRequestorOrderByCreatedDesc(any())).thenReturn(List.of(request1, request2));
+        when(itemStorage.findByRequestIds(List.of(request1.getId(), request2.getId()))).thenReturn(List.of(item));
 
         List<AnsweredItemRequestDto> result = requestService.findByUserId(user.getId());
 
+        verify(itemStorage, times(1)).findByRequestIds(any());
+        verify(itemStorage, never()).findByRequest(any());
+        Assertions.assertTrue(result.get(0).getItems().isEmpty());
+        Assertions.assertEquals(List.of(ItemMapper.toItemDto(item)), result.get(1).getItems());
+
         Assertions.assertEquals(result.get(0).getId(), request1.getId());
         Assertions.assertEquals(result.get(0).getDescription(), request1.getDescription());
         Assertions.assertEquals(result.get(0).getCreated(), request1.getCreated());
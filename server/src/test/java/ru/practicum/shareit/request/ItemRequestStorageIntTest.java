@@ -6,9 +6,13 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
-import org.springframework.data.domain.Page;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import ru.practicum.shareit.cache.EntityCacheConfig;
+import ru.practicum.shareit.cache.EntityCacheProperties;
+import ru.practicum.shareit.item.storage.ItemSearchIndex;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.storage.ItemRequestStorage;
 import ru.practicum.shareit.user.User;
@@ -19,6 +23,7 @@ import java.util.List;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 
 @DataJpaTest
+@Import({ItemSearchIndex.class, EntityCacheConfig.class, EntityCacheProperties.class})
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 public class ItemRequestStorageIntTest {
     @Autowired
@@ -98,12 +103,13 @@ public class ItemRequestStorageIntTest {
         em.persist(request2);
         em.persist(request3);
 
-        Page<ItemRequest> result = requestStorage.findByRequestorNot(user2, PageRequest.of(0, 25, Sort.Direction.ASC, "id"));
+        Slice<ItemRequest> result = requestStorage.findByRequestorNot(user2, PageRequest.of(0, 25, Sort.Direction.ASC, "id"));
 
         assertThat(result.getContent())
                 .asList()
                 .hasSize(2)
                 .containsAll(List.of(request1, request2))
                 .first().isEqualTo(request1);
+        assertThat(result.hasNext()).isFalse();
     }
 }